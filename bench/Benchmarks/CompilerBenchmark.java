@@ -0,0 +1,312 @@
+package Benchmarks;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import AST.*;
+import CodeGenerator.CodeGenerator;
+import CodeGenerator.Java;
+import NameChecker.ClassAndMemberFinder;
+import NameChecker.MyDeclSet;
+import NameChecker.NameChecker;
+import Parser.parser;
+import Parser.sym;
+import Phases.Compiler;
+import Phases.Phase2;
+import Phases.Phase3;
+import Phases.Phase5;
+import Scanner.Scanner;
+import TypeChecker.TypeChecker;
+import Utilities.ClassHierarchy;
+import Utilities.CompilerContext;
+import Utilities.Diagnostic;
+import Utilities.DiagnosticSink;
+import Utilities.ImportCache;
+import Utilities.ProgramGenerator;
+import Utilities.SourceFile;
+
+/** The throughput of every stage of the compiler over a corpus of programs
+ * ('ant bench', see build.xml): the scanner, the parser, the member finder,
+ * the name checker, the type checker and code generation. One operation is
+ * one stage run over every file of the corpus, so the scores are corpora
+ * per second.
+ *
+ * The corpus is every program in the GoodTests directories under the
+ * directory given by the 'corpus' parameter (Tests by default) that
+ * compiles through Phase 5, or one program made by
+ * Utilities/ProgramGenerator.java if the parameter is "synthetic:" and its
+ * options; JMH splits parameters at commas, so they are separated by
+ * semicolons: -p "corpus=synthetic:classes=500;depth=10". The include files
+ * are parsed once and kept in an in-memory ImportCache, just like the
+ * compile server does.
+ *
+ * The passes after the parser change the tree they run on, so each of them
+ * gets fresh trees, made by the stages before it, for every operation; that
+ * is not part of the time, but the GC profiler counts what it allocates
+ * (-Tstats, see Utilities/Stats.java, shows the bytes of a pass alone).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompilerBenchmark {
+
+	/** Throws everything written to it away; the parser and the phases
+	 * print as they go. */
+	static final PrintStream NOWHERE = new PrintStream(new OutputStream() {
+		public void write(int b) {
+		}
+
+		public void write(byte b[], int off, int len) {
+		}
+	});
+
+	/** The programs, and the options to compile them with. */
+	@State(Scope.Benchmark)
+	public static class Corpus {
+		@Param({ "Tests" })
+		public String corpus;
+
+		CompilerContext options;
+		SourceFile sources[];
+		String fileNames[];
+		private PrintStream out;
+
+		@Setup(Level.Trial)
+		public void load() throws IOException {
+			out = System.out;
+			System.setOut(NOWHERE);
+			options = new CompilerContext();
+			options.includeDir = "Include";
+			options.importCache = new ImportCache(null);
+			options.phase = 5;
+			options.setSink(new DiagnosticSink() {
+				public void report(Diagnostic d) {
+				}
+			});
+			ArrayList<SourceFile> good = new ArrayList<SourceFile>();
+			ArrayList<String> names = new ArrayList<String>();
+			if (corpus.startsWith("synthetic:")) {
+				ProgramGenerator g = new ProgramGenerator();
+				g.setAll(corpus.substring("synthetic:".length()));
+				good.add(SourceFile.read(new StringReader(g.generate())));
+				names.add("Generated.java");
+			} else {
+				ArrayList<File> files = new ArrayList<File>();
+				collect(new File(corpus), false, files);
+				for (File f : files) {
+					SourceFile source = SourceFile.read(f);
+					CompilerContext context = new CompilerContext(options);
+					context.fileName = f.getPath();
+					if (Compiler.compile(context, source) == 0) {
+						good.add(source);
+						names.add(f.getPath());
+					}
+				}
+			}
+			if (good.size() == 0)
+				throw new IllegalStateException("No programs in " + corpus + " compile.");
+			sources = good.toArray(new SourceFile[good.size()]);
+			fileNames = names.toArray(new String[names.size()]);
+		}
+
+		@TearDown(Level.Trial)
+		public void restore() {
+			System.setOut(out);
+		}
+
+		private static void collect(File file, boolean good, ArrayList<File> files) {
+			if (file.isDirectory()) {
+				String names[] = file.list();
+				Arrays.sort(names);
+				for (int i = 0; i < names.length; i++)
+					collect(new File(file, names[i]), good || names[i].equals("GoodTests"), files);
+			} else if (good && file.getName().endsWith(".java"))
+				files.add(file);
+		}
+
+		/** A new context for the i'th file. */
+		CompilerContext context(int i) {
+			CompilerContext context = new CompilerContext(options);
+			context.fileName = fileNames[i];
+			return context;
+		}
+	}
+
+	/** Trees that have been parsed (Phase 2: 'Object' is in them). */
+	@State(Scope.Thread)
+	public static class Parsed {
+		CompilerContext contexts[];
+
+		@Setup(Level.Invocation)
+		public void parse(Corpus corpus) {
+			contexts = new CompilerContext[corpus.sources.length];
+			for (int i = 0; i < contexts.length; i++) {
+				CompilerContext context = corpus.context(i);
+				CompilerContext previous = context.bind();
+				try {
+					new Phase2().execute(new parser(new Scanner(corpus.sources[i])), 0, 0x0003);
+				} finally {
+					CompilerContext.unbind(previous);
+				}
+				contexts[i] = context;
+			}
+		}
+	}
+
+	/** Trees whose classes, members and class hierarchy are known: what the
+	 * name checker starts from. */
+	@State(Scope.Thread)
+	public static class Declared {
+		CompilerContext contexts[];
+
+		@Setup(Level.Invocation)
+		public void declare(Corpus corpus) {
+			Parsed parsed = new Parsed();
+			parsed.parse(corpus);
+			contexts = parsed.contexts;
+			for (int i = 0; i < contexts.length; i++) {
+				CompilerContext context = contexts[i];
+				CompilerContext previous = context.bind();
+				try {
+					Compilation root = (Compilation)context.root;
+					root.visit(new ClassAndMemberFinder(context.classTable, false));
+					root.visit(new MyDeclSet(context.classTable, false, false));
+					for (int j = 0; j < context.classTable.size(); j++)
+						ClassHierarchy.number((ClassDecl)context.classTable.entry(j));
+				} finally {
+					CompilerContext.unbind(previous);
+				}
+			}
+		}
+	}
+
+	/** Trees that have been through the given phase. */
+	static CompilerContext[] compiled(Corpus corpus, int phase) {
+		CompilerContext contexts[] = new CompilerContext[corpus.sources.length];
+		for (int i = 0; i < contexts.length; i++) {
+			CompilerContext context = corpus.context(i);
+			CompilerContext previous = context.bind();
+			try {
+				parser p = new parser(new Scanner(corpus.sources[i]));
+				if (phase == 3)
+					new Phase3().execute(p, 0, 0x0007);
+				else
+					new Phase5().execute(p, 0, 0x001F);
+			} finally {
+				CompilerContext.unbind(previous);
+			}
+			contexts[i] = context;
+		}
+		return contexts;
+	}
+
+	@State(Scope.Thread)
+	public static class NameChecked {
+		CompilerContext contexts[];
+
+		@Setup(Level.Invocation)
+		public void check(Corpus corpus) {
+			contexts = compiled(corpus, 3);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ModifierChecked {
+		CompilerContext contexts[];
+
+		@Setup(Level.Invocation)
+		public void check(Corpus corpus) {
+			contexts = compiled(corpus, 5);
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	// The stages
+
+	@Benchmark
+	public void scanner(Corpus corpus, Blackhole bh) throws IOException {
+		for (int i = 0; i < corpus.sources.length; i++) {
+			CompilerContext previous = corpus.context(i).bind();
+			try {
+				Scanner s = new Scanner(corpus.sources[i]);
+				java_cup.runtime.Symbol t;
+				do {
+					t = s.next_token();
+					bh.consume(t);
+				} while (t.sym != sym.EOF);
+			} finally {
+				CompilerContext.unbind(previous);
+			}
+		}
+	}
+
+	@Benchmark
+	public void parser(Corpus corpus, Blackhole bh) throws Exception {
+		for (int i = 0; i < corpus.sources.length; i++) {
+			CompilerContext previous = corpus.context(i).bind();
+			try {
+				bh.consume(new parser(new Scanner(corpus.sources[i])).parse().value);
+			} finally {
+				CompilerContext.unbind(previous);
+			}
+		}
+	}
+
+	@Benchmark
+	public void classAndMemberFinder(Parsed parsed) {
+		for (CompilerContext context : parsed.contexts) {
+			CompilerContext previous = context.bind();
+			try {
+				context.root.visit(new ClassAndMemberFinder(context.classTable, false));
+			} finally {
+				CompilerContext.unbind(previous);
+			}
+		}
+	}
+
+	@Benchmark
+	public void nameChecker(Declared declared) {
+		for (CompilerContext context : declared.contexts) {
+			CompilerContext previous = context.bind();
+			try {
+				context.root.visit(new NameChecker(context.classTable, false));
+			} finally {
+				CompilerContext.unbind(previous);
+			}
+		}
+	}
+
+	@Benchmark
+	public void typeChecker(NameChecked checked) {
+		for (CompilerContext context : checked.contexts) {
+			CompilerContext previous = context.bind();
+			try {
+				context.root.visit(new TypeChecker(context.classTable, false));
+			} finally {
+				CompilerContext.unbind(previous);
+			}
+		}
+	}
+
+	/** Phase 6; the code generator of this tree is left blank, so this is
+	 * the renaming of 'Object' and anything the generator does. */
+	@Benchmark
+	public void codeGenerator(ModifierChecked checked) {
+		for (CompilerContext context : checked.contexts) {
+			CompilerContext previous = context.bind();
+			try {
+				context.root.visit(new Java());
+				new CodeGenerator().generate((Compilation)context.root, false);
+			} finally {
+				CompilerContext.unbind(previous);
+			}
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package Benchmarks;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import Phases.Compiler;
+import Utilities.CompilerContext;
+import Utilities.Diagnostic;
+import Utilities.DiagnosticSink;
+import Utilities.ImportCache;
+import Utilities.ProgramGenerator;
+import Utilities.SourceFile;
+
+/** How the time of a compilation (through Phase 5) grows with the size of
+ * the program ('ant bench', see build.xml). The programs are made by
+ * Utilities/ProgramGenerator.java; every shape makes one thing grow with
+ * 'scale' and keeps the rest the same, so a time that more than doubles
+ * when the scale doubles points at the part of the compiler that handles
+ * that thing:
+ *
+ *   hierarchy  - a chain of 8 * scale classes (the class hierarchy, isSuper()).
+ *   diamonds   - 8 * scale interface diamonds.
+ *   methods    - 8 classes in a chain with 8 * scale methods each (the
+ *                methods of the hierarchy, checkReturnTypesOfIdenticalMethods()).
+ *   statements - one method of 64 * scale statements (Sequence.append()).
+ *   literals   - string literals of 4096 * scale characters (the scanner).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScalingBenchmark {
+	@Param({ "hierarchy", "diamonds", "methods", "statements", "literals" })
+	public String shape;
+
+	@Param({ "1", "2", "4", "8" })
+	public int scale;
+
+	private CompilerContext options;
+	private SourceFile source;
+	private PrintStream out;
+
+	/** The generator options of a shape at a scale. */
+	static String options(String shape, int scale) {
+		if (shape.equals("hierarchy"))
+			return "classes=" + 8 * scale + ",depth=" + 8 * scale + ",width=1,methods=2";
+		if (shape.equals("diamonds"))
+			return "classes=8,diamonds=" + 8 * scale + ",methods=1";
+		if (shape.equals("methods"))
+			return "classes=8,depth=8,width=1,methods=" + 8 * scale;
+		if (shape.equals("statements"))
+			return "classes=1,methods=1,statements=" + 64 * scale + ",nesting=1";
+		if (shape.equals("literals"))
+			return "classes=2,methods=2,literal=" + 4096 * scale;
+		throw new IllegalArgumentException("No shape '" + shape + "'.");
+	}
+
+	@Setup(Level.Trial)
+	public void generate() throws IOException {
+		out = System.out;
+		System.setOut(CompilerBenchmark.NOWHERE);
+		ProgramGenerator g = new ProgramGenerator();
+		g.setAll(options(shape, scale));
+		source = SourceFile.read(new StringReader(g.generate()));
+		options = new CompilerContext();
+		options.includeDir = "Include";
+		options.importCache = new ImportCache(null);
+		options.phase = 5;
+		options.setSink(new DiagnosticSink() {
+			public void report(Diagnostic d) {
+				throw new IllegalStateException("The generated program does not compile: " + d);
+			}
+		});
+	}
+
+	@TearDown(Level.Trial)
+	public void restore() {
+		System.setOut(out);
+	}
+
+	@Benchmark
+	public int compile() {
+		CompilerContext context = new CompilerContext(options);
+		context.fileName = "Generated.java";
+		return Compiler.compile(context, source);
+	}
+}
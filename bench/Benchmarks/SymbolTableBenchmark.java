@@ -0,0 +1,66 @@
+package Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import Utilities.ScopeStack;
+import Utilities.SymbolTable;
+import Utilities.Symbols;
+
+/** The lookups every checker makes over and over ('ant bench', see
+ * build.xml): SymbolTable.get() of a symbol that is in the table and of one
+ * that is not, and ScopeStack.get() of a local three scopes up. The table
+ * has as many entries as the 'size' parameter says.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SymbolTableBenchmark {
+	@Param({ "4", "32", "256" })
+	public int size;
+
+	private SymbolTable table;
+	private ScopeStack scopes;
+	private int symbols[];
+	private int missing;
+	private int local;
+	private int next;
+
+	@Setup
+	public void fill() {
+		table = new SymbolTable();
+		scopes = new ScopeStack();
+		scopes.reset(table);
+		symbols = new int[size];
+		for (int i = 0; i < size; i++) {
+			symbols[i] = Symbols.intern("field" + i);
+			table.put(symbols[i], Integer.valueOf(i));
+		}
+		for (int i = 0; i < 3; i++) {
+			scopes.newScope();
+			scopes.put(Symbols.intern("local" + i), Integer.valueOf(i));
+		}
+		missing = Symbols.intern("notThere");
+		local = Symbols.intern("local0");
+	}
+
+	@Benchmark
+	public Object hit() {
+		next = (next + 1) % size;
+		return table.get(symbols[next]);
+	}
+
+	@Benchmark
+	public Object miss() {
+		return table.get(missing);
+	}
+
+	@Benchmark
+	public Object scopeStack() {
+		return scopes.get(local);
+	}
+}
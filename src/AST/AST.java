@@ -7,6 +7,11 @@ public abstract class AST {
 	public int nchildren = 0;
 	public AST[] children;
 
+	/** Used by Utilities/ASTCodec.java, which sets the fields of the node
+	 * itself; every node class has a constructor like this one. */
+	AST() {
+	}
+
 	public AST(int p_line, int p_charBegin) {
 		line = p_line;
 		charBegin = p_charBegin;
@@ -72,6 +77,15 @@ public abstract class AST {
 		this.print(System.out);
 	}
 
+	/** Right-sizes the child arrays of the sequences in this tree (see
+	 * Sequence.trim()); with -compact the parser does this to every tree it
+	 * makes. */
+	public void compact() {
+		for (int c = 0; c < nchildren; c++)
+			if (children[c] != null)
+				children[c].compact();
+	}
+
 	/* *********************************************************** */
 	/* **                                                       ** */
 	/* ** Generic Visitor Stuff                                 ** */
@@ -83,9 +97,13 @@ public abstract class AST {
 	/** Visit all children of this node from left to right.  Usually
 	called from within a visitor */
 	public Object visitChildren(Visitor v) {
+		boolean replace = v.replacesChildren();
 		for (int c = 0; c < nchildren; c++) 
-			if (children[c] != null) 
-				children[c].visit(v);
+			if (children[c] != null) {
+				Object result = children[c].visit(v);
+				if (replace && result instanceof AST)
+					children[c] = (AST)result;
+			}
 		return null;
 	}
 
@@ -4,6 +4,9 @@ import Utilities.Visitor;
 
 public class ArrayAccessExpr extends Expression {
 
+	ArrayAccessExpr() {
+	}
+
 	public ArrayAccessExpr(Expression target, Expression index) {
 		super(target);
 		nchildren = 2;
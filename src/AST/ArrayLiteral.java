@@ -4,6 +4,9 @@ import Utilities.Visitor;
 
 public class ArrayLiteral extends Expression {
 
+	ArrayLiteral() {
+	}
+
 	public ArrayLiteral(Sequence seq) {
 		super(seq);
 		nchildren = 1;
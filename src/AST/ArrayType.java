@@ -6,6 +6,9 @@ public class ArrayType extends Type {
 
 	private int depth = 0; // How many set of [ ] were there?
 
+	ArrayType() {
+	}
+
 	public ArrayType(Type baseType, int depth) {
 		super(baseType);
 		nchildren = 1;
@@ -25,7 +28,11 @@ public class ArrayType extends Type {
 		return "(ArrayType: " + typeName() + ")";
 	}
 
-	public String signature() {
+	public int typeKind() {
+		return ArrayTypeKind;
+	}
+
+	protected String makeSignature() {
 		String s = "";
 		for (int i=0;i<depth; i++)
 			s += "[";				
@@ -3,6 +3,9 @@ import Utilities.Visitor;
 
 public class Assignment extends Expression {
     
+    Assignment() {
+    }
+
     public Assignment(Expression /* Name, FieldRef or ArrayAccess only */ left, Expression right,
 	       AssignmentOp op) {
 	super(left);
@@ -22,6 +22,9 @@ public class AssignmentOp extends AST {
 		"", "=", "*=", "/=", "%=", "+=", "-=", "<<=", 
 		">>=", ">>>=", "&=", "|=", "^="  };
 
+	AssignmentOp() {
+	}
+
 	public AssignmentOp(Token t, int kind) {
 		super(t);
 		this.kind = kind;
@@ -32,6 +32,9 @@ public class BinOp extends AST {
 	"<=", ">=", "instanceof", "==", "!=", "&", "|", "^",
 	"&&", "||" };
 
+    BinOp() {
+    }
+
     public BinOp(Token t, int kind) {
 	super(t);
 	this.kind = kind;
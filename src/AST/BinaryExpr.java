@@ -5,6 +5,9 @@ import java.math.*;
 
 public class BinaryExpr extends Expression {
 
+	BinaryExpr() {
+	}
+
 	public BinaryExpr(Expression left, Expression right, BinOp op) {
 		super(left);
 		nchildren = 3;
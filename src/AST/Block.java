@@ -3,6 +3,9 @@ import Utilities.Visitor;
 
 public class Block extends Statement {
     
+    Block() {
+    }
+
     public Block(Sequence /* of Statements */ stats) {
 	super(stats);
 	nchildren = 1;
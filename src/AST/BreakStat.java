@@ -3,6 +3,9 @@ import Utilities.Visitor;
 
 public class BreakStat extends Statement {
 
+    BreakStat() {
+    }
+
     public BreakStat(Token b) {
 	super(b);
 	nchildren = 0;
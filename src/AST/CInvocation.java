@@ -8,10 +8,13 @@ public class CInvocation extends Expression {
 
 	private boolean superInv, thisInv;
 
+	CInvocation() {
+	}
+
 	public CInvocation(Token cl, Sequence /* of Expression */ args) {
 		super(cl);
 		nchildren = 1;
-		superInv = (cl.text.equals("super")); //(cl.sym == sym.SUPER);
+		superInv = (cl.text().equals("super")); //(cl.sym == sym.SUPER);
 		thisInv  = !superInv;
 		children = new AST [] { args };
 	}
@@ -5,6 +5,9 @@ import java.math.*;
 
 public class CastExpr extends Expression {
 
+	CastExpr() {
+	}
+
 	public CastExpr(Type ct, Expression expr) {
 		super(ct);
 		nchildren = 2;
@@ -5,6 +5,9 @@ public abstract class ClassBodyDecl extends AST {
         
     public int localsUsed = 1;
 
+    ClassBodyDecl() {
+    }
+
     public ClassBodyDecl(AST a) {
 	super(a);
     }
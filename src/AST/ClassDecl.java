@@ -1,14 +1,33 @@
 package AST;
 
+import java.util.BitSet;
+
+import Utilities.CompilerContext;
 import Utilities.SymbolTable;
 import Utilities.Visitor;
 
 public class ClassDecl extends AST {
 	//<--
 	public Modifiers modifiers;
-	// Symbol Table methods and data    
-	public SymbolTable methodTable = new SymbolTable();
-	public SymbolTable fieldTable  = new SymbolTable();
+	// Symbol Table methods and data: made the first time they are asked
+	// for, see methodTable() and fieldTable().
+	private SymbolTable methodTable = null;
+	private SymbolTable fieldTable  = null;
+	// The methods and fields of the whole class hierarchy by name: the
+	// entry of the nearest class or interface that declares the name. Made
+	// from the tables above by NameChecker.resolveMembers() when they are
+	// first needed.
+	public transient SymbolTable resolvedMethods = null;
+	public transient SymbolTable resolvedFields = null;
+	// The place of the class in the class hierarchy, see
+	// Utilities/ClassHierarchy.java.
+	public transient int typeId = 0;
+	public transient ClassDecl display[] = null;
+	public transient BitSet interfaceClosure = null;
+	// The include file the class was read from (see Parser/espresso.cup);
+	// null for the classes of the file being compiled. The errors found
+	// while visiting the class are about that file, see visit().
+	public transient String include = null;
 	
 	private boolean generateCode = true; // imported files need not generate code cause their
 	// respective class files are located in the Include/Library folder.
@@ -16,16 +35,20 @@ public class ClassDecl extends AST {
 
 	// Methods in the class hierarchy
 	// These are set in NameChecker.java: checkImplementationOfAbstractClasses
-	public Sequence abstractMethods = new Sequence(); // all abstract methods in the class hierarchy
-	public Sequence concreteMethods = new Sequence(); // all concrete methods in the class hierarchy
-	public Sequence allMethods      = new Sequence(); // all concrete and abstract methods in the class hierarchy
-	public Sequence constructors    = new Sequence(); // all constructors for this class.
+	// and visitClassDecl; null before that.
+	public Sequence abstractMethods = null; // all abstract methods in the class hierarchy
+	public Sequence concreteMethods = null; // all concrete methods in the class hierarchy
+	public Sequence allMethods      = null; // all concrete and abstract methods in the class hierarchy
+	public Sequence constructors    = null; // all constructors for this class.
 
 	public static final boolean IS_INTERFACE = true;
 	public static final boolean IS_NOT_INTERFACE = false;
 	public boolean m_class = false, 
 			m_interface = false;
 
+	ClassDecl() {
+	}
+
 	public ClassDecl(Sequence /* of Modifier */ modifiers,
 			Name name, 
 			ClassType superclass,
@@ -47,10 +70,29 @@ public class ClassDecl extends AST {
 	public Sequence  interfaces() { return (Sequence)children[3];  } 
 	public Sequence  body()       { return (Sequence)children[4];  }
 
+	/** The methods of the class by name; each entry is a table of the
+	 * methods of that name by signature (see ClassAndMemberFinder.java). */
+	public SymbolTable methodTable() {
+		if (methodTable == null)
+			methodTable = new SymbolTable();
+		return methodTable;
+	}
+
+	/** The fields of the class by name. */
+	public SymbolTable fieldTable() {
+		if (fieldTable == null)
+			fieldTable = new SymbolTable();
+		return fieldTable;
+	}
+
 	public String name() {
 		return className().toString();
 	}
 
+	public int symbol() {
+		return className().symbol();
+	}
+
 	public boolean isInterface() {
 		return m_interface;
 	}
@@ -84,7 +126,16 @@ public class ClassDecl extends AST {
 
 
 	public Object visit(Visitor v) {
-		return v.visitClassDecl(this);
+		if (include == null)
+			return v.visitClassDecl(this);
+		CompilerContext context = CompilerContext.current();
+		String outer = context.include;
+		context.include = include;
+		try {
+			return v.visitClassDecl(this);
+		} finally {
+			context.include = outer;
+		}
 	}
 
 	//-->
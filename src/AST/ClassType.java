@@ -5,6 +5,9 @@ public class ClassType extends Type {
 
 	public ClassDecl myDecl; // Point to the class representing this class type
 
+	ClassType() {
+	}
+
 	public ClassType(Name className) { 
 		super(className);
 		nchildren = 1;
@@ -23,7 +26,11 @@ public class ClassType extends Type {
 		return name().getname();
 	}
 
-	public String signature() {
+	public int typeKind() {
+		return ClassTypeKind;
+	}
+
+	protected String makeSignature() {
 		return "L"+typeName()+";";
 	}
 
@@ -3,6 +3,9 @@ import Utilities.Visitor;
 
 public class Compilation extends AST {
 
+	Compilation() {
+	}
+
 	public Compilation(Sequence types) {
 		super(types);
 		nchildren = 1;
@@ -5,6 +5,9 @@ public class ConstructorDecl extends ClassBodyDecl  {
 
 	private Modifiers modifiers;
 
+	ConstructorDecl() {
+	}
+
 	public ConstructorDecl(Sequence /* of Modifiers */ modifiers, Name name, 
 			Sequence /* of ParamDecl */ params, 
 			CInvocation cInvocation,
@@ -3,6 +3,9 @@ import Utilities.Visitor;
 
 public class ContinueStat extends Statement {
 
+	ContinueStat() {
+	}
+
 	public ContinueStat(Token c) {
 		super(c);
 		nchildren = 0;
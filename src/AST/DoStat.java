@@ -3,6 +3,9 @@ import Utilities.Visitor;
 
 public class DoStat extends Statement {
 
+	DoStat() {
+	}
+
 	public DoStat(Statement stat, Expression expr) {
 		super(expr);
 		nchildren = 2;
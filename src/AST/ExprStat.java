@@ -3,6 +3,9 @@ import Utilities.Visitor;
 
 public class ExprStat extends Statement {
 
+	ExprStat() {
+	}
+
 	public ExprStat(Expression expression) {
 		super(expression);
 		nchildren = 1;
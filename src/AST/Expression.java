@@ -4,6 +4,9 @@ public abstract class Expression extends AST {
 
 	public Type type = null;
 
+	Expression() {
+	}
+
 	public Expression(Token t) {
 		super(t);
 	}
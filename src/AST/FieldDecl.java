@@ -7,6 +7,9 @@ public class FieldDecl extends ClassBodyDecl implements VarDecl  {
 	public boolean interfaceMember = false;
     public int fieldNumber; // this field it the 'fieldNumber'th field in th class. Needed for initializer checking
 	
+	FieldDecl() {
+	}
+
 	public FieldDecl(Sequence /* of Modifier */ modifiers,
 			Type type, Var var, boolean interfaceMember) {
 		super(type);
@@ -29,6 +32,10 @@ public class FieldDecl extends ClassBodyDecl implements VarDecl  {
 		return var().name().getname();
 	}
 
+	public int symbol() {
+		return var().name().symbol();
+	}
+
 	public String toString() {
 		return "FieldDecl>(Type:" + type() + " " + "Name:" + var() + ")";
 	}
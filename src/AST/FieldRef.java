@@ -9,6 +9,9 @@ public class FieldRef extends Expression {
 	// from rewriting so that we can produce errors messages that make more sense
 
 
+	FieldRef() {
+	}
+
 	public FieldRef(Expression target, Name fieldName) {
 		super(fieldName);
 		nchildren = 2;
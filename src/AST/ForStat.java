@@ -5,6 +5,9 @@ public class ForStat extends Statement {
 
 	/* Note that init() and incr() can be null */
 
+	ForStat() {
+	}
+
 	public ForStat(Token t, Sequence /* of Statements*/ init, 
 			Expression expr, 
 			Sequence /* of Expressions */ incr , 
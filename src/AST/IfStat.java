@@ -5,6 +5,9 @@ public class IfStat extends Statement {
 
 	/** Note that elsepart() can return null! */
 
+	IfStat() {
+	}
+
 	public IfStat(Expression expr, Statement thenpart) {
 		this(expr, thenpart, null);
 	}
@@ -8,6 +8,9 @@ public class Invocation extends Expression {
 	public MethodDecl targetMethod; // This one is needed in the code generation phase
 	public Type targetType; // This one is needed in the code generation phase 
 
+	Invocation() {
+	}
+
 	public Invocation(Expression target, Name name, 
 			Sequence /* of Expressions*/ params) {
 		super(target);
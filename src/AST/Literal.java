@@ -36,41 +36,60 @@ public class Literal extends Expression {
 	private int kind;
 	private String text;
 
+	Literal() {
+	}
+
 	public Literal(Token p_t, int kind) {
 		super(p_t);
 		this.kind = kind;
-		this.text = p_t.text;
 		nchildren = 0;
 
+		// Integer and long literals were converted by the scanner (see
+		// Scanner/espresso.flex), so their text is not needed; tokens made
+		// elsewhere, and numbers that are too large, are decoded here.
+		if ((kind == IntKind || kind == ShortKind || kind == ByteKind || kind == LongKind) && p_t.value >= 0) {
+			text = Long.toString(p_t.value);
+			return;
+		}
+		this.text = p_t.text();
 		if (kind == CharKind)
-			text = new Integer(parseChar(text)).toString();
+			text = Integer.toString(parseChar(text));
 		else if (kind == IntKind || kind == ShortKind || kind == ByteKind) {
-			try {
-				text = (Integer.decode(text)).toString();
-			} catch (NumberFormatException e) {
-				Error.error(this, "integer number " + text + " too large", true);
+			long value = p_t.value;
+			if (value == Token.NO_VALUE) {
+				try {
+					value = Integer.decode(text);
+				} catch (NumberFormatException e) {
+					value = Token.TOO_LARGE;
+				}
 			}
+			if (value == Token.TOO_LARGE)
+				Error.error(this, "integer number " + text + " too large", true);
+			else
+				text = Long.toString(value);
 		}
 		else if (kind == LongKind) {
 			if (text.charAt(text.length()-1) == 'l' || text.charAt(text.length()-1) == 'L') {
 				text = text.substring(0,text.length()-1);
-				try {
-					text = (Long.decode(text)).toString();
-				} catch (NumberFormatException e) {
-					Error.error(this, "long number " + text + " too large", true);
+				long value = p_t.value;
+				if (value == Token.NO_VALUE) {
+					try {
+						value = Long.decode(text);
+					} catch (NumberFormatException e) {
+						value = Token.TOO_LARGE;
+					}
 				}
+				if (value == Token.TOO_LARGE)
+					Error.error(this, "long number " + text + " too large", true);
+				else
+					text = Long.toString(value);
 			}
 		}
-		else if (kind == DoubleKind) {
-			if (text.charAt(text.length()-1) == 'd' || text.charAt(text.length()-1) == 'D')
-				text = text.substring(0,text.length()-1);
-			text = ""+Double.parseDouble(text);
-		}
-		else if (kind == FloatKind) {
-			if (text.charAt(text.length()-1) == 'f' || text.charAt(text.length()-1) == 'F')
-				text = text.substring(0,text.length()-1);
-			text = ""+Float.parseFloat(text);
-		} 
+		// parseDouble() and parseFloat() accept the d, D, f and F suffixes.
+		else if (kind == DoubleKind)
+			text = Double.toString(Double.parseDouble(text));
+		else if (kind == FloatKind)
+			text = Float.toString(Float.parseFloat(text));
 		// kind 10 will just fall through
 	}
 
@@ -111,19 +130,19 @@ public class Literal extends Expression {
 	public int intValue() {
 		if (kind != IntKind && kind != CharKind)
 			Error.error("Can't convert non int value to int.");	
-		return Integer.decode(text).intValue();
+		return Integer.parseInt(text);
 	}
 
 	public int charValue() {
 		if (kind != CharKind) 
 			Error.error("Can't convert non char value to char.");
-		return Integer.decode(text).intValue();
+		return Integer.parseInt(text);
 	}
 
 	public long longValue() {
 		if (kind != LongKind)
 			Error.error("Can't convert non long value to long.");
-		return Long.decode(text).longValue();
+		return Long.parseLong(text);
 	}
 
 	public static boolean isByteValue(long val) {
@@ -131,7 +150,7 @@ public class Literal extends Expression {
 	}
 
 	public boolean isByteValue() {
-		return isByteValue(Long.decode(text).longValue());
+		return isByteValue(Long.parseLong(text));
 	}
 
 	public static boolean isShortValue(long val) {
@@ -139,7 +158,7 @@ public class Literal extends Expression {
 	}
 
 	public boolean isShortValue() {
-		return isShortValue(Long.decode(text).longValue());
+		return isShortValue(Long.parseLong(text));
 	}
 
 	public static boolean isIntValue(long val) {
@@ -147,7 +166,7 @@ public class Literal extends Expression {
 	}
 
 	public boolean isIntValue() {
-		return isIntValue(Long.decode(text).longValue());
+		return isIntValue(Long.parseLong(text));
 
 	}
 
@@ -156,7 +175,7 @@ public class Literal extends Expression {
 	}
 
 	public boolean isCharValue() {
-		return isCharValue(Long.decode(text).longValue());
+		return isCharValue(Long.parseLong(text));
 	}
 
 	public static boolean isFloatValue(double val) {
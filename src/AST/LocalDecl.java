@@ -5,6 +5,9 @@ public class LocalDecl extends Statement implements VarDecl  {
 
 	public int address = -1;
 
+	LocalDecl() {
+	}
+
 	public LocalDecl(Type type, Var var) {
 		super(type);
 		nchildren = 2;
@@ -18,6 +21,10 @@ public class LocalDecl extends Statement implements VarDecl  {
 		return var().name().getname();
 	}
 
+	public int symbol() {
+		return var().name().symbol();
+	}
+
 	public String toString() {
 		return "LocalDecl>(Type:" + type() + " " + "Name:" + var() + ")";
 	}
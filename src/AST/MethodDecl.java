@@ -15,6 +15,9 @@ public class MethodDecl extends ClassBodyDecl  {
 	private Modifiers modifiers;
 	private boolean interfaceMember = false;
 
+	MethodDecl() {
+	}
+
 	public MethodDecl(Sequence /* of Modifier */ modifiers,
 			Type returnType, Name name, 
 			Sequence /* of ParamDecl */ params, 
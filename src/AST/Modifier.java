@@ -11,6 +11,9 @@ public class Modifier extends AST {
 	public final static int Final     = 4;
 	public final static int Abstract  = 5;
 
+	Modifier() {
+	}
+
 	public Modifier(Token t, int modifier) {
 		super(t);
 		this.modifier = modifier;
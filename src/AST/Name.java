@@ -1,21 +1,31 @@
 package AST;
+import Utilities.Symbols;
 import Utilities.Visitor;
 
 public class Name extends AST {
 	private String id;
+	// The symbol of id (see Utilities/Symbols.java). Symbols only mean
+	// something in this JVM, so it is not stored with the parse trees of
+	// include files; 0 until it is looked up again.
+	private transient int symbol;
 	private int arrayDepth = 0; // somewhat of a hack - we keep track of 
 	// whether this name is an id in a variable declaration with [] on. 
 
+	Name() {
+	}
+
 	public Name(Token p_id) {
 		super(p_id);
 		nchildren = 0;
-		this.id = p_id.text;
+		this.symbol = p_id.symbol != 0 ? p_id.symbol : Symbols.intern(p_id.text());
+		this.id = Symbols.name(symbol);
 		this.arrayDepth = 0;
 	}
 
 	public Name(Name n, int arrayDepth) {
 		super(n);
 		this.id = n.getname(); 
+		this.symbol = n.symbol();
 		this.arrayDepth = arrayDepth;	
 	}
 
@@ -23,8 +33,15 @@ public class Name extends AST {
 		return this.id;
 	}
 
+	public int symbol() {
+		if (symbol == 0)
+			symbol = Symbols.intern(id);
+		return symbol;
+	}
+
 	public void setName(String na) {
-		id = na;
+		symbol = Symbols.intern(na);
+		id = Symbols.name(symbol);
 	}
 	
 	public String toString() {
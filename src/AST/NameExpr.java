@@ -10,6 +10,9 @@ public class NameExpr extends Expression {
 
 	public AST myDecl = null;
 
+	NameExpr() {
+	}
+
 	public NameExpr(Name name) {
 		super(name);
 		nchildren = 1;
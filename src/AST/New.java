@@ -5,6 +5,9 @@ public class New extends Expression {
 
 	private ConstructorDecl constructor = null; // This is needed in the code generation phase.
 
+	New() {
+	}
+
 	public New(ClassType typeName,  Sequence /* of Expressions */ args) {
 		super(typeName);
 		nchildren = 2;
@@ -4,6 +4,9 @@ import Utilities.Visitor;
 
 public class NewArray extends Expression {
 
+	NewArray() {
+	}
+
 	public NewArray(Type type, Sequence dimsExpr, Sequence dims, ArrayLiteral init) {
 		super(type);
 		nchildren = 4;
@@ -6,6 +6,9 @@ public class NullType extends Type {
 	/** This type does not occur in the parse tree! it is
 	for type checking purposes only */
 
+	NullType() {
+	}
+
 	public NullType(Literal li) {
 		super(li);
 	}
@@ -14,7 +17,11 @@ public class NullType extends Type {
 		return "(NullType:)";
 	}
 
-	public String signature() {
+	public int typeKind() {
+		return NullTypeKind;
+	}
+
+	protected String makeSignature() {
 		return "";
 	}
 
@@ -5,6 +5,9 @@ public class ParamDecl extends AST implements VarDecl  {
 
 	public int address = -1;
 
+	ParamDecl() {
+	}
+
 	public ParamDecl(Type type, Name name) {
 		super(type);
 		nchildren = 2;
@@ -18,6 +21,10 @@ public class ParamDecl extends AST implements VarDecl  {
 		return paramName().getname();
 	}
 
+	public int symbol() {
+		return paramName().symbol();
+	}
+
 	public String toString() {
 		return "ParamDecl>(Type:" + type() + " " + "Name:" + name() + ")";
 	}
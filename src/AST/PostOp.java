@@ -8,6 +8,9 @@ public class PostOp extends AST {
 
 	private int kind;
 
+	PostOp() {
+	}
+
 	public PostOp(Token t, int kind) {
 		super(t);
 		this.kind = kind;
@@ -13,6 +13,9 @@ public class PreOp extends AST {
 	private int kind;
 	private static final String [] opSyms = { "" , "++", "--", "+", "-", "~", "!" };
 
+	PreOp() {
+	}
+
 	public PreOp(Token t, int kind) {
 		super(t);
 		this.kind = kind;
@@ -20,6 +20,9 @@ public class PrimitiveType extends Type {
 									  "String", "void" };
 	private int kind;
 
+	PrimitiveType() {
+	}
+
 	public PrimitiveType(Token p_t, int kind) {
 		super(p_t);
 		this.kind = kind;
@@ -39,7 +42,7 @@ public class PrimitiveType extends Type {
 
 	public static PrimitiveType ceilingType(PrimitiveType p1, PrimitiveType p2) {
 		if (p1.kind < IntKind && p2.kind < IntKind)
-			return new PrimitiveType(IntKind);
+			return TypeFactory.primitiveType(IntKind);
 
 		if (p1.kind < p2.kind)
 			return p2;
@@ -65,7 +68,11 @@ public class PrimitiveType extends Type {
 		return kind;
 	}
 
-	public String signature() {
+	public int typeKind() {
+		return kind;
+	}
+
+	protected String makeSignature() {
 		switch (kind) {
 		case BooleanKind:
 			return "Z";
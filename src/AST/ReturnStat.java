@@ -7,6 +7,9 @@ public class ReturnStat extends Statement {
 
 	/* Note that expr() can return null */
 
+	ReturnStat() {
+	}
+
 	public ReturnStat(Token r, Expression expr) {
 		super(r);
 		nchildren = 1;
@@ -1,4 +1,6 @@
 package AST;
+import java.util.Arrays;
+
 import Utilities.Visitor;
 
 public class Sequence extends AST {
@@ -18,19 +20,27 @@ public class Sequence extends AST {
 	public Sequence append(AST element) {
 		int length = children == null ? 0 : children.length;
 		//if (element == null) return this;
-		if (nchildren >= length) {
-			AST[] c = new AST[(length + 1) * 2];
-			int i;
-			for (i = 0; i < length; i++) {
-				c[i] = children[i];
-			}
-			children = c;
-		}
+		if (nchildren >= length)
+			children = children == null ? new AST[2] : Arrays.copyOf(children, (length + 1) * 2);
 		children[nchildren] = element;
 		nchildren ++;
 		return this;
 	}
 
+	/** Drops the unused slots at the end of the child array; a sequence
+	 * has room for 10 children when it is made, and doubles its room when
+	 * it is full. Appending to it later is fine. */
+	public Sequence trim() {
+		if (children != null && children.length > nchildren)
+			children = nchildren == 0 ? null : Arrays.copyOf(children, nchildren);
+		return this;
+	}
+
+	public void compact() {
+		trim();
+		super.compact();
+	}
+
 	public Sequence merge(Sequence others) {
 		if (others == null || others.nchildren == 0) return this;
 		int i;
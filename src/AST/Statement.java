@@ -2,6 +2,9 @@ package AST;
 
 public abstract class Statement extends AST {
 
+	Statement() {
+	}
+
 	public Statement(Token t) {
 		super(t);
 	}
@@ -3,6 +3,9 @@ import Utilities.Visitor;
 
 public class StaticInitDecl extends ClassBodyDecl {
 
+	StaticInitDecl() {
+	}
+
 	public StaticInitDecl(Block init) {
 		super(init);
 		nchildren = 1;
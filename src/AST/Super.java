@@ -4,6 +4,9 @@ import Utilities.Visitor;
 public class Super extends Expression {
     //public ClassType type;
 
+	Super() {
+	}
+
 	public Super(Token p_t) {
 		super(p_t);
 		nchildren = 0;
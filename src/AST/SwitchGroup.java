@@ -5,6 +5,9 @@ public class SwitchGroup extends AST {
 
 	private String label; // used in the code generation phase.    
 
+	SwitchGroup() {
+	}
+
 	public SwitchGroup(Sequence /* SwitchLabels */ labels, 
 			Sequence /* Statement */ stmts) {
 		super(labels);
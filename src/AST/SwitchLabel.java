@@ -9,6 +9,9 @@ public class SwitchLabel extends AST {
 	private SwitchGroup mySwitchGroup = null;
 
 
+	SwitchLabel() {
+	}
+
 	public SwitchLabel(Expression const_expr, boolean def) {
 		super(const_expr);
 		nchildren = 1;
@@ -3,6 +3,9 @@ import Utilities.Visitor;
 
 public class SwitchStat extends Statement {
 
+	SwitchStat() {
+	}
+
 	public SwitchStat(Expression expr,
 			Sequence /* SwitchGroup */ switchBlocks) {
 		super(expr);
@@ -3,6 +3,9 @@ import Utilities.Visitor;
 
 public class Ternary extends Expression {
 
+	Ternary() {
+	}
+
 	public Ternary(Expression expr, Expression trueBranch, Expression falseBranch) {
 		super(expr);
 		nchildren = 3;
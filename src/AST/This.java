@@ -3,6 +3,9 @@ import Utilities.Visitor;
 
 public class This extends Expression {
 
+	This() {
+	}
+
 	public This(Token p_t) {
 		super(p_t);
 		nchildren = 0;
@@ -1,11 +1,29 @@
 package AST;
 
+import Utilities.LineIndex;
+
+/** A token. The scanner (see Scanner/espresso.flex) gives keywords,
+ * operators and separators the one String their kind is always spelled
+ * with, and identifiers the String of their symbol; the text of a literal is
+ * left in the scanner's line index until text() is first called. */
 public class Token {
     public int sym;
-    public String text;
+    private String text;
+    // Where the text is in the scanned source, while it is not a String yet.
+    private LineIndex source;
+    private int offset, length;
     public int line;
     public int charBegin;
     public int charEnd;
+    /** The symbol of an identifier (see Utilities/Symbols.java); 0 for
+     * all other tokens. */
+    public int symbol;
+    /** The value of an integer or long literal (see Scanner/espresso.flex):
+     * TOO_LARGE if it does not fit, NO_VALUE for all other tokens. */
+    public long value = NO_VALUE;
+
+    public static final long TOO_LARGE = -1;
+    public static final long NO_VALUE = -2;
     
     public static final String names[] = {
 	"EOF",
@@ -108,10 +126,34 @@ public class Token {
 	charBegin = p_charBegin;
 	charEnd = p_charEnd;
     }
+
+    public Token (int p_kind, LineIndex p_source, int p_offset, int p_length, int p_line, int p_charBegin, int p_charEnd) {
+	sym = p_kind;
+	source = p_source;
+	offset = p_offset;
+	length = p_length;
+	line = p_line;
+	charBegin = p_charBegin;
+	charEnd = p_charEnd;
+    }
+
+    /** The text of the token. */
+    public String text() {
+	if (text == null) {
+	    text = source.text(offset, length);
+	    source = null;
+	}
+	return text;
+    }
+
+    /** The length of the text of the token. */
+    public int length() {
+	return text == null ? length : text.length();
+    }
     
     public String toString() {
 	return "Token "+names[sym]+
-		" '"+text+"'"+
+		 " '"+text()+"'"+
 		" line "+line+
 		" pos ["+charBegin+".."+charEnd+"]";
     }
@@ -1,8 +1,13 @@
 package AST;
+import Utilities.ClassHierarchy;
+import Utilities.CompilerContext;
 import Utilities.Error;
 
 public abstract class Type extends AST {
 
+	Type() {
+	}
+
 	public Type(AST a) {
 		super(a);
 	}
@@ -11,32 +16,89 @@ public abstract class Type extends AST {
 		super(t);
 	}
 
+	// The kinds of the types that are not primitive types (those use the
+	// kinds in PrimitiveType.java).
+	public final static int ClassTypeKind = 11;
+	public final static int ArrayTypeKind = 12;
+	public final static int NullTypeKind  = 13;
+
+	// The signature, made the first time it is asked for, and the canonical
+	// instance of this type (see TypeFactory.java), if they can be kept (see
+	// fixed()). Neither is stored with the parse trees of include files.
+	private transient String signature;
+	private transient Type canonical;
+
 	public abstract String typeName() ;
 
-	public abstract String signature() ;
+	/** What kind of type this is: one of the kinds in PrimitiveType.java or
+	 * one of the kinds above. */
+	public abstract int typeKind() ;
+
+	/** Makes the signature; see signature(). */
+	protected abstract String makeSignature() ;
+
+	public final String signature() {
+		if (signature != null)
+			return signature;
+		String s = makeSignature();
+		if (fixed())
+			signature = s;
+		return s;
+	}
+
+	/** The canonical instance of this type: types are identical if and only
+	 * if their canonical instances are the same object. */
+	public Type canonical() {
+		if (canonical != null)
+			return canonical;
+		Type t = CompilerContext.current().types.canonical(this);
+		if (fixed())
+			canonical = t;
+		return t;
+	}
+
+	/** True if the signature and the canonical instance of this type cannot
+	 * change. The name of a class type in the parse tree can be changed
+	 * (see Name.setName()), and so can that of the elements of an array
+	 * type, so those are made again every time they are asked for; the
+	 * canonical instances themselves have names of their own. */
+	private boolean fixed() {
+		return canonical == this || (typeKind() != ClassTypeKind && typeKind() != ArrayTypeKind);
+	}
+
+	void setCanonical(Type t) {
+		canonical = t;
+	}
 
 	public String getTypePrefix() {
-		if (this.isClassType() || this.isNullType() || isStringType() || isArrayType())
+		switch (typeKind()) {
+		case ClassTypeKind:
+		case NullTypeKind:
+		case ArrayTypeKind:
+		case PrimitiveType.StringKind:
 			return "a";
-		else if (this.isIntegerType() || this.isShortType() ||
-				this.isByteType()    || this.isCharType() || this.isBooleanType())
+		case PrimitiveType.IntKind:
+		case PrimitiveType.ShortKind:
+		case PrimitiveType.ByteKind:
+		case PrimitiveType.CharKind:
+		case PrimitiveType.BooleanKind:
 			return "i";
-		else if (this.isFloatType())
+		case PrimitiveType.FloatKind:
 			return "f";
-		else if (this.isStringType()) 
-			return "a";
-		else if (this.isLongType())
+		case PrimitiveType.LongKind:
 			return "l";
-		else if (this.isDoubleType())
+		case PrimitiveType.DoubleKind:
 			return "d";
-		else 
+		default:
 			Error.error("Type.java:getTypePrefix(): no prefix for type: " + typeName());
+		}
 		return "";
 	}
 
 	public boolean identical(Type other) {
 		// TODO this was changed 3/29/12 from typename() to signature()
-		if (signature().equals(other.signature()))	    
+		// Types with the same signature have the same canonical instance.
+		if (canonical() == other.canonical())
 			return true;
 		else if ((this instanceof ClassType) && (other instanceof NullType))
 			return true;
@@ -47,7 +109,7 @@ public abstract class Type extends AST {
 	}
 
 	public boolean assignable() {
-		return (!typeName().equals("null") && !typeName().equals("void"));
+		return !isVoidType();
 	}
 
 	public static boolean assignmentCompatible(Type var, Type val) {
@@ -55,16 +117,16 @@ public abstract class Type extends AST {
 			return true;
 		else if (var.isNumericType() && val.isNumericType()) {
 			// Both are numeric (primitive) types.
-			PrimitiveType pvar = (PrimitiveType)var;
-			PrimitiveType pval = (PrimitiveType)val;
+			int kvar = var.typeKind();
+			int kval = val.typeKind();
 
 			// double :> float :> long :> int :> short :> byte
-			if (pvar.getKind() == PrimitiveType.CharKind)
+			if (kvar == PrimitiveType.CharKind)
 			    return false; // do not allow assignment of numeric values to chars
-			if (pval.getKind() == PrimitiveType.CharKind)
-				return (pvar.getKind() != PrimitiveType.ByteKind &&
-					pvar.getKind() != PrimitiveType.ShortKind);
-			return (pvar.getKind() >= pval.getKind()); // ok to assign char value to none byte/short var
+			if (kval == PrimitiveType.CharKind)
+				return (kvar != PrimitiveType.ByteKind &&
+					kvar != PrimitiveType.ShortKind);
+			return (kvar >= kval); // ok to assign char value to none byte/short var
 		} else if ((var instanceof ClassType) && (val instanceof ClassType)) {
 			// Both are of class type.
 			// super :> sub.
@@ -77,67 +139,71 @@ public abstract class Type extends AST {
 	}
 
 	public boolean isIntegerType() {
-		return (this instanceof PrimitiveType && ((PrimitiveType)this).getKind() == PrimitiveType.IntKind);
+		return typeKind() == PrimitiveType.IntKind;
 	}
 
 	public boolean isArrayType() {
-		return (this instanceof ArrayType);
+		return typeKind() == ArrayTypeKind;
 	}
 
 	public boolean isBooleanType() {
-		return (this instanceof PrimitiveType && ((PrimitiveType)this).getKind() == PrimitiveType.BooleanKind);
+		return typeKind() == PrimitiveType.BooleanKind;
 	}
 
 	public boolean isByteType() {
-		return (this instanceof PrimitiveType && ((PrimitiveType)this).getKind() == PrimitiveType.ByteKind);
+		return typeKind() == PrimitiveType.ByteKind;
 	}
 
 	public boolean isShortType() {
-		return (this instanceof PrimitiveType && ((PrimitiveType)this).getKind() == PrimitiveType.ShortKind);
+		return typeKind() == PrimitiveType.ShortKind;
 	}
 
 	public boolean isCharType() {
-		return (this instanceof PrimitiveType && ((PrimitiveType)this).getKind() == PrimitiveType.CharKind);
+		return typeKind() == PrimitiveType.CharKind;
 	}
 
 	public boolean isLongType() {
-		return (this instanceof PrimitiveType && ((PrimitiveType)this).getKind() == PrimitiveType.LongKind);
+		return typeKind() == PrimitiveType.LongKind;
 	}
 
 	public boolean isClassType() {
-		return (this instanceof ClassType);
+		return typeKind() == ClassTypeKind;
 	}
 
 	public boolean isVoidType() {
-		return (typeName().equals("void"));
+		return typeKind() == PrimitiveType.VoidKind;
 	}
 
 	public boolean isNullType() {
-		return (this instanceof NullType);
+		return typeKind() == NullTypeKind;
 	}
 
 	public boolean isStringType() {
-		return (typeName().equals(PrimitiveType.names[PrimitiveType.StringKind]));
+		return typeKind() == PrimitiveType.StringKind;
 	}
 
 	public boolean isFloatType() {
-		return (this instanceof PrimitiveType && ((PrimitiveType)this).getKind() == PrimitiveType.FloatKind);
+		return typeKind() == PrimitiveType.FloatKind;
 	}
 
 	public boolean isDoubleType() {
-		return (this instanceof PrimitiveType && ((PrimitiveType)this).getKind() == PrimitiveType.DoubleKind);
+		return typeKind() == PrimitiveType.DoubleKind;
 	}
 
+	// byte, short, char, int, long, float and double have consecutive kinds.
 	public boolean isNumericType() {
-		return (isFloatType() || isDoubleType() || isIntegralType());
+		int kind = typeKind();
+		return kind >= PrimitiveType.ByteKind && kind <= PrimitiveType.DoubleKind;
 	}
 
 	public boolean isIntegralType() {
-		return (isIntegerType() || isShortType() || isByteType() || isCharType() || isLongType());
+		int kind = typeKind();
+		return kind >= PrimitiveType.ByteKind && kind <= PrimitiveType.LongKind;
 	}
 
 	public boolean isPrimitiveType() {
-		return isNumericType() || isVoidType() || isNullType() || isStringType() || isBooleanType();
+		int kind = typeKind();
+		return (kind >= PrimitiveType.BooleanKind && kind <= PrimitiveType.VoidKind) || kind == NullTypeKind;
 	} 
 
 
@@ -174,28 +240,16 @@ public abstract class Type extends AST {
 	 * @return 1 or 2 - the number of stack words a value of this type takes up.
 	 */
 	public int width() {
-		if (isDoubleType() || isLongType())
+		int kind = typeKind();
+		if (kind == PrimitiveType.DoubleKind || kind == PrimitiveType.LongKind)
 			return 2;
 		return 1;
 	}
 	
+	/** True if sup is sub or one of its superclasses or interfaces (see
+	 * Utilities/ClassHierarchy.java). */
 	public static boolean isSuper(ClassType sup, ClassType sub) {
-		ClassDecl supd = sup.myDecl;
-		ClassDecl subd = sub.myDecl;
-
-		if (supd.name().equals(subd.name()))
-			return true;
-
-		// Take the sub classes super class
-		ClassType subdsuper = subd.superClass();
-		boolean found = false;
-		if (subdsuper != null) 
-			found = isSuper(sup, subdsuper);
-		for (int i=0; i<subd.interfaces().nchildren; i++) {
-			found = found || isSuper(sup, (ClassType)subd.interfaces().children[i]);
-		}
-		return found;
-
+		return ClassHierarchy.isSuper(sup.myDecl, sub.myDecl);
 	}
 
 }             
@@ -0,0 +1,94 @@
+package AST;
+
+import java.util.HashMap;
+
+/** Makes the canonical instances of the types of a compilation: two types
+ * are identical exactly when their canonical instances are the same object,
+ * so comparing types does not have to build and compare signatures.
+ *
+ * The types in the parse tree stay what they are (they carry the line
+ * numbers used in error messages); Type.canonical() finds the canonical
+ * instance of any of them. The primitive types and the null type are shared
+ * by all compilations; the class and array types belong to one compilation
+ * (CompilerContext.types) because a class type points to the declaration of
+ * its class. A canonical class type has a Name node of its own, so that
+ * renaming a class type in the parse tree does not rename it.
+ */
+public class TypeFactory {
+	private static final PrimitiveType primitiveTypes[] = new PrimitiveType[PrimitiveType.VoidKind + 1];
+	static {
+		for (int kind = PrimitiveType.BooleanKind; kind <= PrimitiveType.VoidKind; kind++)
+			primitiveTypes[kind] = new PrimitiveType(kind);
+	}
+	private static final NullType nullType = new NullType(null);
+
+	/** The class and array types made so far, by signature. */
+	private HashMap<String, Type> types = new HashMap<String, Type>();
+
+	/** The primitive type of the given kind (see PrimitiveType.java). */
+	public static PrimitiveType primitiveType(int kind) {
+		return primitiveTypes[kind];
+	}
+
+	/** The type of 'null'. */
+	public static NullType nullType() {
+		return nullType;
+	}
+
+	/** The type of the objects of class cd. */
+	public ClassType classType(ClassDecl cd) {
+		ClassType ct = (ClassType)types.get("L" + cd.name() + ";");
+		if (ct == null) {
+			ct = new ClassType(new Name(cd.className(), 0));
+			ct.myDecl = cd;
+			ct.setCanonical(ct);
+			types.put(ct.signature(), ct);
+		}
+		return ct;
+	}
+
+	/** The type of arrays with 'depth' dimensions of elements of 'base'. */
+	public ArrayType arrayType(Type base, int depth) {
+		if (base instanceof ArrayType) {
+			depth += ((ArrayType)base).getDepth();
+			base = ((ArrayType)base).baseType();
+		}
+		base = canonical(base);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < depth; i++)
+			sb.append('[');
+		String signature = sb.append(base.signature()).toString();
+		ArrayType at = (ArrayType)types.get(signature);
+		if (at == null) {
+			at = new ArrayType(base, depth);
+			at.setCanonical(at);
+			types.put(signature, at);
+		}
+		return at;
+	}
+
+	/** The canonical instance of t. */
+	public Type canonical(Type t) {
+		switch (t.typeKind()) {
+		case Type.ClassTypeKind: {
+			ClassType ct = (ClassType)types.get(t.signature());
+			if (ct == null) {
+				ct = new ClassType(new Name(((ClassType)t).name(), 0));
+				ct.setCanonical(ct);
+				types.put(t.signature(), ct);
+			}
+			// The declaration may not have been known when the canonical
+			// type was made.
+			if (ct.myDecl == null)
+				ct.myDecl = ((ClassType)t).myDecl;
+			return ct;
+		}
+		case Type.ArrayTypeKind:
+			return arrayType(((ArrayType)t).baseType(), ((ArrayType)t).getDepth());
+		case Type.NullTypeKind:
+			return nullType;
+		default:
+			return primitiveTypes[t.typeKind()];
+		}
+	}
+}
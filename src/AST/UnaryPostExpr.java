@@ -3,6 +3,9 @@ import Utilities.Visitor;
 
 public class UnaryPostExpr extends Expression {
 
+	UnaryPostExpr() {
+	}
+
 	public UnaryPostExpr(Expression expr, PostOp op) {
 		super(expr);
 		nchildren = 2;
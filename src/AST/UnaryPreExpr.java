@@ -6,6 +6,9 @@ import java.math.*;
 
 public class UnaryPreExpr extends Expression {
 
+	UnaryPreExpr() {
+	}
+
 	public UnaryPreExpr(Expression expr, PreOp op) {
 		super(expr);
 		nchildren = 2;
@@ -8,6 +8,9 @@ public class Var extends AST {
 
 	/* Note init() can return null */
 
+	Var() {
+	}
+
 	public Var(Name name, Expression init) { 
 		super(name);
 		nchildren = 2;
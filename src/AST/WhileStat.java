@@ -3,6 +3,9 @@ import Utilities.Visitor;
 
 public class WhileStat extends Statement {
 
+	WhileStat() {
+	}
+
 	public WhileStat(Expression expr, Statement stat) {
 		super(expr);
 		nchildren = 2;
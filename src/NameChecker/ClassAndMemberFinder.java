@@ -3,16 +3,19 @@ package NameChecker;
 import AST.*;
 import Utilities.Error;
 import Utilities.SymbolTable;
+import Utilities.Symbols;
 import Utilities.Visitor;
 import Parser.*;
-import Phases.Phase2;
+import Utilities.CompilerContext;
 
 /** A visitor class which visits classes, and their members and enters  
-    them into the appropriate tables */
+    them into the appropriate tables. There are no classes inside the
+    members, so the members themselves are not visited. */
 public class ClassAndMemberFinder extends Visitor {
 	
 	private void addMethod(ClassDecl cd, ClassBodyDecl md, String name, String sig) {
-		SymbolTable st = (SymbolTable)cd.methodTable.get(name);
+		int symbol = Symbols.intern(name);
+		SymbolTable st = (SymbolTable)cd.methodTable().get(symbol);
 
 		// Are there methods defined in this class' symbol table with the right name?
 		if (st != null) {
@@ -24,7 +27,7 @@ public class ClassAndMemberFinder extends Visitor {
 
 		// If we are inserting a constructor just insert in now - don't
 		// go looking in the super classes.
-		if (name.equals("<init>")) {
+		if (symbol == Symbols.INIT) {
 			if (st == null) {
 				//A constructor with this name has never been inserted before
 				// Create a new symbol table to hold all constructors.
@@ -32,18 +35,18 @@ public class ClassAndMemberFinder extends Visitor {
 				// Insert the signature with the method decl.
 				mt.put(sig, md);
 				// Insert this symbol table into the method table.
-				cd.methodTable.put(name, mt);		
+				cd.methodTable().put(symbol, mt);		
 			} else 
 				st.put(sig, md);
 			return ;
 		}
 
 		// Static initializers
-		if (name.equals("<clinit>")) {
+		if (symbol == Symbols.CLINIT) {
 			// We can only have one static initializer, so it doesn't exist in the table.
 			SymbolTable mt = new SymbolTable();
 			mt.put(sig, md);
-			cd.methodTable.put(name, mt);
+			cd.methodTable().put(symbol, mt);
 			return;
 		}
 
@@ -62,7 +65,7 @@ public class ClassAndMemberFinder extends Visitor {
 			// Insert the signature with the method decl.
 			mt.put(sig, md);
 			// Insert this symbol table into the method table.
-			cd.methodTable.put(name, mt);
+			cd.methodTable().put(symbol, mt);
 		} else 
 			// Methods with this name have been defined before, so just use that entry.
 			st.put(sig, md);
@@ -71,7 +74,7 @@ public class ClassAndMemberFinder extends Visitor {
 	private void addField(ClassDecl cd, FieldDecl f, String name) {
 		// We will not search the hierarchy now - we do that later when the 
 		// entire class hierarchy has been defined.
-		cd.fieldTable.put(name,f);
+		cd.fieldTable().put(f.symbol(),f);
 	}
 
 	// %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
@@ -106,17 +109,18 @@ public class ClassAndMemberFinder extends Visitor {
 
 	/** (1) CLASS DECLARATION */
 	public Object visitClassDecl(ClassDecl cd) {
-		println("ClassDecl:\t Inserting class '" + cd.name() +"' into global class table.");
+		if (debug)
+			println("ClassDecl:\t Inserting class '" + cd.name() +"' into global class table.");
 
 		// Enter this class into the class table 
-		classTable.put(cd.name(), cd);
+		classTable.put(cd.symbol(), cd);
 
 		// 01/17/2012 added for allowing for common superclass 'Object'
 		// For espresso it is simiilar to java/lang/Object for Java
 		// see Phases/Phases2.java for the class 'Object'
 		if (cd.superClass() == null && !cd.name().equals("Object")) {
 			cd.children[2] = new ClassType(new Name(new Token(sym.IDENTIFIER,"Object",cd.line,0,0)));
-			((ClassType)cd.children[2]).myDecl = Phase2.Objects_myDecl;
+			((ClassType)cd.children[2]).myDecl = CompilerContext.current().objectsDecl;
 		}		
 		// Update the current class 
 		currentClass = cd;
@@ -129,7 +133,7 @@ public class ClassAndMemberFinder extends Visitor {
 		// If there are not constructors at all - insert the default -
 		// don't actually make any parse tree stuff - just generate
 		// the code automatically in the code generation phase.
-		if (cd.methodTable.get("<init>") == null && !cd.isInterface()) { 
+		if (cd.methodTable().get(Symbols.INIT) == null && !cd.isInterface()) { 
 			Token t = new Token(sym.IDENTIFIER, cd.name(), 0, 0, 0);
 			Modifier m = new Modifier(Modifier.Public);
 
@@ -142,7 +146,8 @@ public class ClassAndMemberFinder extends Visitor {
 			addMethod(cd, c, "<init>", "");
 			
 			cd.body().append(c);
-			println("ClassDecl:\t Generating default construction <init>() for class '" + cd.name() + "'");
+			if (debug)
+				println("ClassDecl:\t Generating default construction <init>() for class '" + cd.name() + "'");
 		}
 
 		return null;
@@ -151,38 +156,38 @@ public class ClassAndMemberFinder extends Visitor {
 	/** (2) CONSTRUCTOR DECLARATION */
 	public Object visitConstructorDecl(ConstructorDecl cd) {
 		// insert into current class's method table
-		println("ConstructorDecl: Inserting constructor '<init>' with signature '" + cd.paramSignature() + "' into method table for class '" + currentClass.name() + "'.");
+		if (debug)
+			println("ConstructorDecl: Inserting constructor '<init>' with signature '" + cd.paramSignature() + "' into method table for class '" + currentClass.name() + "'.");
 		addMethod(currentClass, cd, "<init>", cd.paramSignature());
-		super.visitConstructorDecl(cd);
 		return null;
 	}
 
 	/** (3) METHOD DECLARATION */
 	public Object visitMethodDecl(MethodDecl md) {
 		// insert into current class's method table
-		println("MethodDecl:\t Inserting method '" + md.getname() + "' with signature '" + md.paramSignature() + "' into method table for class '" + currentClass.name() + "'.");
+		if (debug)
+			println("MethodDecl:\t Inserting method '" + md.getname() + "' with signature '" + md.paramSignature() + "' into method table for class '" + currentClass.name() + "'.");
 		addMethod(currentClass, md, md.getname(), md.paramSignature());
-		super.visitMethodDecl(md);
 		return null;
 	}
 
 	/** (4) FIELD DECLARATION */
 	public Object visitFieldDecl(FieldDecl fd) {
 		// insert into current class's method table
-		println("FieldDecl:\t Inserting field '" + fd.getname() + "' into field table of class '" + currentClass.name() + "'.");
+		if (debug)
+			println("FieldDecl:\t Inserting field '" + fd.getname() + "' into field table of class '" + currentClass.name() + "'.");
 		addField(currentClass, fd, fd.getname());
 		fd.fieldNumber = fieldCounter;
 		fieldCounter++;
-		super.visitFieldDecl(fd);
 		return null;
 	}
 
 	/** (5) STATIC INITIALIZER DELCARATION
 	 - insert static initializer with name <clinit> */
 	public Object visitStaticInitDecl(StaticInitDecl si) {
-		println("StaticInitDecl:\t Inserting <clinit> into method table for class '" + currentClass.name() + "'.");
+		if (debug)
+			println("StaticInitDecl:\t Inserting <clinit> into method table for class '" + currentClass.name() + "'.");
 		addMethod(currentClass, si, "<clinit>", "");
-		super.visitStaticInitDecl(si);
 		return null;
 	}
 }
@@ -0,0 +1,71 @@
+package NameChecker;
+
+import java.util.*;
+
+import AST.*;
+import Utilities.Visitor;
+
+/** Collects the names of the classes a class uses, once the name checker has
+ * set all the myDecls in it: the classes named by class types (which covers
+ * the superclass, the interfaces, 'new' and declarations), the classes named
+ * by name expressions, and the classes that declare the fields and methods
+ * it refers to. See Utilities/DependencyGraph.java.
+ */
+public class DependencyFinder extends Visitor {
+	/** The class each field belongs to. */
+	private IdentityHashMap<FieldDecl, ClassDecl> owners = new IdentityHashMap<FieldDecl, ClassDecl>();
+	private ClassDecl currentClass;
+	private TreeSet<String> dependencies;
+
+	/** @param classes all the classes of the program. */
+	public DependencyFinder(Sequence classes) {
+		for (int i = 0; i < classes.nchildren; i++) {
+			ClassDecl cd = (ClassDecl)classes.children[i];
+			for (int j = 0; j < cd.body().nchildren; j++)
+				if (cd.body().children[j] instanceof FieldDecl)
+					owners.put((FieldDecl)cd.body().children[j], cd);
+		}
+	}
+
+	/** The classes cd uses (not counting itself). */
+	public TreeSet<String> find(ClassDecl cd) {
+		currentClass = cd;
+		dependencies = new TreeSet<String>();
+		cd.visit(this);
+		return dependencies;
+	}
+
+	private void add(ClassDecl cd) {
+		if (cd != null && cd != currentClass)
+			dependencies.add(cd.name());
+	}
+
+	private void add(FieldDecl fd) {
+		if (fd != null)
+			add(owners.get(fd));
+	}
+
+	public Object visitClassType(ClassType ct) {
+		add(ct.myDecl);
+		return null;
+	}
+
+	public Object visitNameExpr(NameExpr ne) {
+		if (ne.myDecl instanceof ClassDecl)
+			add((ClassDecl)ne.myDecl);
+		else if (ne.myDecl instanceof FieldDecl)
+			add((FieldDecl)ne.myDecl);
+		return super.visitNameExpr(ne);
+	}
+
+	public Object visitFieldRef(FieldRef fr) {
+		add(fr.myDecl);
+		return super.visitFieldRef(fr);
+	}
+
+	public Object visitInvocation(Invocation in) {
+		if (in.targetMethod != null)
+			add(in.targetMethod.getMyClass());
+		return super.visitInvocation(in);
+	}
+}
@@ -11,21 +11,43 @@ import Utilities.Visitor;
 // any order you need this traversal. If you don't care then make sure
 // you have an implementation of visitClassType in
 // ClassAndMemberFinder.
+//
+// Only the superclasses and interfaces must be set before the name
+// checker runs (it looks up members in the class hierarchy); it sets the
+// other class types itself as it goes. So unless 'all' is true only the
+// headers of the classes are visited. A class the name checker does not
+// visit (one that has not changed, see Phases/Phase3.java) must have all
+// its class types set, as the classes that use it look at its signatures.
+// When tracing, all class types are set here, so the trace has a
+// "Setting myDecl" line for each of them, as it had before the name
+// checker set them.
 
 
 public class MyDeclSet extends Visitor {
 
 	private SymbolTable classTable;
+	private boolean all;
 
-	public MyDeclSet(SymbolTable classTable, boolean debug) { 
+	public MyDeclSet(SymbolTable classTable, boolean all, boolean debug) { 
 		this.classTable = classTable; 
+		this.all = all;
 		this.debug = debug;
 	}
 
+	public Object visitClassDecl(ClassDecl cd) {
+		if (all)
+			return super.visitClassDecl(cd);
+		if (cd.superClass() != null)
+			cd.superClass().visit(this);
+		cd.interfaces().visit(this);
+		return null;
+	}
+
 	public Object visitClassType(ClassType ct) {
-		ClassDecl cd = (ClassDecl) classTable.get(ct.typeName());
+		ClassDecl cd = (ClassDecl) classTable.get(ct.name().symbol());
 
-		println("ClassType:\t Setting myDecl for '" + ct.typeName() + "'");
+		if (debug)
+			println("ClassType:\t Setting myDecl for '" + ct.typeName() + "'");
 
 		if (cd == null) 
 			Error.error(ct,"Class '" + ct.typeName() + "' not found.");
@@ -33,4 +55,3 @@ public class MyDeclSet extends Visitor {
 		return null;
 	}
 }
-
@@ -1,94 +1,108 @@
 package NameChecker;
 
 import AST.*;
+import Utilities.ClassHierarchy;
 import Utilities.Error;
 import Utilities.SymbolTable;
+import Utilities.Symbols;
 import Utilities.Visitor;
 import Utilities.Rewrite;
+import Utilities.ScopeStack;
 
 import java.util.*;
 import Parser.*;;
 
 public class NameChecker extends Visitor {
 
-	/* getMethod traverses the class hierarchy to look for a method of
-       name 'methodName'. We return #t if we find any method with the
-       correct name. Since we don't have types yet we cannot look at
-       the signature of the method, so all we do for now is look if
-       any method is defined. The search is as follows:
+	/* getMethod looks for a method of name 'methodName' in the class
+       hierarchy. We return the table of the methods of that name in the
+       nearest class or interface that has any. Since we don't have types
+       yet we cannot look at the signature of the method, so all we do for
+       now is look if any method is defined. The search order is:
 
        1) look in the current class
-       2) look in its super class
+       2) look in its super class (and its super classes and interfaces)
        3) look in all the interfaces
 
        Remember that the an entry in the methodTable is a symbol table
        it self. It holds all entries of the same name, but with
        different signatures. (See Documentation)
+
+       The search is done once per class, see resolveMembers().
 	 */    
 	public static SymbolTable getMethod(String methodName, ClassDecl cd) {
+		return getMethod(Symbols.lookup(methodName), cd);
+	}
 
-		// OUR CODE HERE - (COMPLETE)
-		if (cd.methodTable.get(methodName) != null) {
-			return (SymbolTable)cd.methodTable.get(methodName);
-		} 
-		else if (cd.superClass() != null) {
-			SymbolTable result = getMethod(methodName, cd.superClass().myDecl);
-			if (result != null) {
-				return result;
-			}
-		}
-		else if (cd.interfaces() != null) {
-			Sequence interfaces = cd.interfaces();
-			for (int i = 0; i < interfaces.nchildren; i++) {
-				SymbolTable result = getMethod(methodName, ((ClassType)interfaces.children[i]).myDecl);
-				if (result != null) {
-					return result;
-				}
-			}
-		}
-		return null;
+	public static SymbolTable getMethod(int methodName, ClassDecl cd) {
+		if (cd.resolvedMethods == null)
+			resolveMembers(cd);
+		return (SymbolTable)cd.resolvedMethods.get(methodName);
 	}
 
 	/* Same as getMethod just for fields instead 
 	 */
 	public static AST getField(String fieldName, ClassDecl cd) {
+		return getField(Symbols.lookup(fieldName), cd);
+	}
 
-		// OUR CODE HERE - (COMPLETE)
-		if (cd.fieldTable.get(fieldName) != null) {
-			return (FieldDecl)cd.fieldTable.get(fieldName);
-		} 
-		else if (cd.superClass() != null) {
-			FieldDecl result = (FieldDecl)getField(fieldName, cd.superClass().myDecl);
-			if (result != null) {
-				return result;
-			}
+	public static AST getField(int fieldName, ClassDecl cd) {
+		if (cd.resolvedFields == null)
+			resolveMembers(cd);
+		return (FieldDecl)cd.resolvedFields.get(fieldName);
+	}
+
+	/* Fills cd.resolvedMethods and cd.resolvedFields: every name of a
+	   method or field in the class hierarchy, with the entry of the
+	   nearest class that has it (in the order getMethod() describes). The
+	   tables of the super classes and interfaces are made first, so every
+	   class is only looked at once no matter how many classes inherit from
+	   it. The method and field tables of the whole hierarchy must be
+	   filled in and the myDecls of the super classes and interfaces must
+	   be set before this is called.
+	 */
+	public static void resolveMembers(ClassDecl cd) {
+		// The tables are set before the super classes are looked at, so a
+		// class that (wrongly) inherits from itself does not loop forever.
+		cd.resolvedMethods = new SymbolTable();
+		cd.resolvedFields = new SymbolTable();
+		inherit(cd.resolvedMethods, cd.methodTable(), true);
+		inherit(cd.resolvedFields, cd.fieldTable(), true);
+		if (cd.superClass() != null && cd.superClass().myDecl != null)
+			inheritMembers(cd, cd.superClass().myDecl);
+		for (int i = 0; i < cd.interfaces().nchildren; i++) {
+			ClassDecl id = ((ClassType)cd.interfaces().children[i]).myDecl;
+			if (id != null)
+				inheritMembers(cd, id);
 		}
-		else if (cd.interfaces() != null) {
-			Sequence interfaces = cd.interfaces();
-			for (int i = 0; i < interfaces.nchildren; i++) {
-				FieldDecl result = (FieldDecl)getField(fieldName, ((ClassType)interfaces.children[i]).myDecl);
-				if (result != null) {
-					return result;
-				}
-			}
+	}
+
+	private static void inheritMembers(ClassDecl cd, ClassDecl sup) {
+		if (sup.resolvedMethods == null)
+			resolveMembers(sup);
+		inherit(cd.resolvedMethods, sup.resolvedMethods, false);
+		inherit(cd.resolvedFields, sup.resolvedFields, false);
+	}
+
+	/* Adds the entries of 'from' whose names are not in 'to' yet; the
+	   constructors and static initializers of other classes are not
+	   inherited. */
+	private static void inherit(SymbolTable to, SymbolTable from, boolean own) {
+		for (int i = 0; i < from.size(); i++) {
+			int symbol = from.symbol(i);
+			if (!own && (symbol == Symbols.INIT || symbol == Symbols.CLINIT))
+				continue;
+			if (to.get(symbol) == null)
+				to.put(symbol, from.entry(i));
 		}
-		return null;
 	}
 
 	/* Traverses all the classes and interfaces and builds a sequence
-	   of the methods and constructors of the class hierarchy.
+	   of the methods and constructors of the class hierarchy: the methods
+	   of the class, then those of its super class (and so on), then those
+	   of its interfaces. Every class or interface is only visited once.
 	 */
     public void getClassHierarchyMethods(ClassDecl cd, Sequence lst, Hashtable<String, Object> seenClasses) {
-		// OUR CODE HERE - NON-ESPRESSO+ PART COMPLETE
-	    
-	    	// (1) takes in a CLASS as an empty sequence
-	    	// (2) builds a seqence of all the methods found in the ENTIRE class heirarchy
-	    	//	- class, super class, interfaces, super class of super class, etc.
-	    	// Espresso+:
-	    	// If a method does not have a body, and appears in a class, then:
-	    	// (1) the METHOD should be declared abstract.
-	    	// (2) the CLASS should be declared abstract.
-	    	// 	- abstract classes cannot have a constructor(s)
     	seenClasses.put(cd.name(), cd);
     	
     	Sequence classBodyDecls = cd.body();
@@ -103,90 +117,110 @@ public class NameChecker extends Visitor {
     		getClassHierarchyMethods(cd.superClass().myDecl, lst, seenClasses);
     	}
     	
-    	if (cd.interfaces() != null) {
-    		Sequence interfaces = cd.interfaces();
-    		for (int i = 0; i <interfaces.nchildren; i++) {
-    			getClassHierarchyMethods(cd.superClass().myDecl, lst, seenClasses);
-    		}
+    	Sequence interfaces = cd.interfaces();
+    	for (int i = 0; i < interfaces.nchildren; i++) {
+    		ClassType ct = (ClassType)interfaces.children[i];
+    		if (seenClasses.get(ct.typeName()) == null)
+    			getClassHierarchyMethods(ct.myDecl, lst, seenClasses);
     	}
     }
 
+	/* The key of a method in the tables below: its name and its parameter
+	   signature. */
+	private static String methodKey(MethodDecl md) {
+		return md.getname() + "(" + md.paramSignature() + ")";
+	}
+
+	/* The way the methods are written in error messages, e.g. ' int bar( int boolean )'. */
+	private static String methodHeader(MethodDecl md) {
+		return Type.parseSignature(md.returnType().signature()) + " " + md.getname() + "(" + Type.parseSignature(md.paramSignature()) + " )";
+	}
+
 	/* For each method (not constructors) in this list, check that if
        it exists more than once with the same parameter signature that
-       they all return something of the same type. 
+       they all return something of the same type. Every method is
+       compared to the first method in the list with the same name and
+       parameter signature, which is found in a hash table. The error is
+       reported at the first method in the list that has a twin with
+       another return type.
 	*/
     public void checkReturnTypesOfIdenticalMethods(Sequence lst) {
-		// OUR CODE HERE - STILL TO FINISH
-	    
-	    	// For each method (not constructors) traverses the class hierarchy and compares the return type with:
-	    	// (1) any method of the same name
-	    	// (2) any method of the same param signature
-	    	// (3) If reimplemented, throw an error.
-    		// We must assure a method has NOT been reimplemented with the same return type
+    	HashMap<String, Integer> first = new HashMap<String, Integer>();
+    	int wrong = lst.nchildren;
     	for (int i = 0; i < lst.nchildren; i++) {
-    		for (int j = 0; j < lst.nchildren; j++) {
-    			String iName = ((MethodDecl)lst.children[i]).getname();
-    			String iSig = ((MethodDecl)lst.children[i]).paramSignature();
-    			String jName = ((MethodDecl)lst.children[j]).getname();
-    			String jSig = ((MethodDecl)lst.children[j]).paramSignature();
-    			if (iName.equals(jName) && iSig.equals(jSig)) {
-    				String iType = ((MethodDecl)lst.children[i]).returnType().signature();
-    				String jType = ((MethodDecl)lst.children[j]).returnType().signature();
-    				if (!(iType.equals(jType))) {
-    					Error.error(lst.children[i], "Method " + ((MethodDecl)lst.children[i]).getname() + " re-implemented with incorrect type.");
-    				}
-    			}
-    		}
+    		MethodDecl md = (MethodDecl)lst.children[i];
+    		String key = methodKey(md);
+    		Integer j = first.get(key);
+    		if (j == null)
+    			first.put(key, i);
+    		else if (j < wrong && !md.returnType().signature().equals(((MethodDecl)lst.children[j]).returnType().signature()))
+    			wrong = j;
     	}
+    	if (wrong < lst.nchildren)
+    		Error.error(lst.children[wrong], "Method " + ((MethodDecl)lst.children[wrong]).getname() + " re-implemented with incorrect type.");
     }
     
+	/* Divides the methods of the class hierarchy into the abstract ones
+	   (those without a body: abstract methods and the methods of
+	   interfaces) and the concrete ones, and stores them in
+	   cd.abstractMethods and cd.concreteMethods. If the class must
+	   implement all its abstract methods (it is neither abstract nor an
+	   interface) every abstract method must have a concrete method with
+	   the same name and parameter signature somewhere in the hierarchy.
+	 */
 	public void checkImplementationOfAbstractClasses(ClassDecl cd, Sequence methods) {
-		// OUR CODE HERE - STILL TO FINISH
-		
-		// We need to assure every single abstract method or an interface method has:
-		// an implementation in the sequence of regular methods.
-		// We need to compare name, parameter signature and return type signature to assure that the implementation is valid.
-		
-		// Separate the sequence of methods from getClassHierarchyMethods() method into a sequence that contains:
-		// (1) all abstracts
-		// (2) all interface methods
-		// (3) all the regular methods with bodies.
-		// (4) If there is a method that does not have an implementation, throw an error.
-		
+		HashSet<String> implemented = new HashSet<String>();
+		cd.abstractMethods = new Sequence();
+		cd.concreteMethods = new Sequence();
+		for (int i = 0; i < methods.nchildren; i++) {
+			MethodDecl md = (MethodDecl)methods.children[i];
+			if (md.block() == null)
+				cd.abstractMethods.append(md);
+			else {
+				cd.concreteMethods.append(md);
+				implemented.add(methodKey(md));
+			}
+		}
+		if (cd.isInterface() || cd.modifiers.isAbstract())
+			return;
+		for (int i = 0; i < cd.abstractMethods.nchildren; i++) {
+			MethodDecl md = (MethodDecl)cd.abstractMethods.children[i];
+			if (!implemented.contains(methodKey(md)))
+				Error.error(md, "Class '" + cd.name() + "' should be declared abstract; it does not implement\n" + methodHeader(md));
+		}
 	}
     
-	// In our language, we do not allow fields to be "reimplemented" in subclasses.
-	// (1) insert all fields into the fields Sequence
-	// (2) call recursively on all super classes and interfaces
-	// 	- will traverse the field Sequence with each one of its fields to check
-	// 	if it is implemented in a sub class or a class that implement an interface.
-	// (3) If implemented, throw an error.
-
-	// (1) Traverse the class hierchy with a table
-	// (2) 	- if not already there, insert all fields
-	// (3)	- if there, throw an error.
-	public void checkUniqueFields(Sequence fields, ClassDecl cd) {
-
-		// goal: call recursively on all super classes and interfaces
+	// In our language, we do not allow fields to be "reimplemented" in
+	// subclasses: a field name can only be used once in the class hierarchy.
+	// The fields of the class, its super classes and its interfaces are
+	// entered into a table by name; a name that is already there is an
+	// error. Classes that can be reached in more than one way are only
+	// looked at once.
+	public void checkUniqueFields(ClassDecl cd) {
+		checkUniqueFields(new HashMap<String, FieldDecl>(), new HashSet<ClassDecl>(), cd);
+	}
+
+	private void checkUniqueFields(HashMap<String, FieldDecl> fields, HashSet<ClassDecl> seen, ClassDecl cd) {
+		if (cd == null || !seen.add(cd))
+			return;
 		Sequence classBodyDecls = cd.body();
     	
     	for (int i = 0; i < classBodyDecls.nchildren; i++) {
     		if (classBodyDecls.children[i] instanceof FieldDecl) {
-    			for (int j = 0; j < fields.nchildren; j++) {
-    				if (((FieldDecl)fields.children[j]).name().equals(((FieldDecl)classBodyDecls.children[i]).getname())) {
-    					Error.error(((FieldDecl)fields.children[j]), "Field " + ((FieldDecl)fields.children[j]).name() + " already defined.");
-    				}
-    			}
-    			fields.append(classBodyDecls.children[i]);
+    			FieldDecl fd = (FieldDecl)classBodyDecls.children[i];
+    			FieldDecl other = fields.get(fd.name());
+    			if (other != null)
+    				Error.error(other, "Field " + other.name() + " already defined.");
+    			fields.put(fd.name(), fd);
     		}
     	}
 		
 		if (cd.superClass() != null){
-			checkUniqueFields(fields, cd.superClass().myDecl);
+			checkUniqueFields(fields, seen, cd.superClass().myDecl);
 		}
 		
 		for(int i = 0; i < cd.interfaces().nchildren; i++) {
-			checkUniqueFields(fields, ((ClassType)cd.interfaces().children[i]).myDecl);
+			checkUniqueFields(fields, seen, ((ClassType)cd.interfaces().children[i]).myDecl);
 		}
 	}
 	
@@ -199,26 +233,17 @@ public class NameChecker extends Visitor {
 	// sup is the class in which the abstract method lives,
 	// sub is the class in which the concrete method lives.
 	public static boolean isSuper(ClassDecl sup, ClassDecl sub) {
-		if (sup.name().equals(sub.name()))
-			return true;
-
-		if (sub.superClass() != null && isSuper(sup, sub.superClass().myDecl))
-			return true;
-
-		for (int i=0; i<sub.interfaces().nchildren; i++) 
-			if (isSuper(sup, ((ClassType)sub.interfaces().children[i]).myDecl))
-			return true;
-
-		return false;
+		return ClassHierarchy.isSuper(sup, sub);
 	}
 	// %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
 	// %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
 	// %%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
 
 	/**
-	 * Points to the current scope.
+	 * The scopes of the parameters and locals; the field table of the
+	 * current class is below them.
 	 */
-	private SymbolTable currentScope;
+	private ScopeStack currentScope = new ScopeStack();
 	/**
 	 * The class table<br>
 	 * This is set in the constructor.
@@ -235,12 +260,22 @@ public class NameChecker extends Visitor {
 		this.debug = debug;
 	}
 
+	/** The scopes of the parameters and locals (for the statistics). */
+	public ScopeStack scopes() {
+		return currentScope;
+	}
+
+	/** The NameExprs that are fields are rewritten as they are resolved. */
+	public boolean replacesChildren() {
+		return true;
+	}
+
 	/** (1) BLOCK */
 	public Object visitBlock(Block bl) {
 		println("Block:\t\t Creating new scope for Block.");
-		currentScope = currentScope.newScope();
+		currentScope.newScope();
 		super.visitBlock(bl);
-		currentScope = currentScope.closeScope(); 
+		currentScope.closeScope(); 
 		return null;
 	}
 
@@ -248,30 +283,33 @@ public class NameChecker extends Visitor {
 	public Object visitForStat(ForStat bl) {
 		// OUR CODE HERE (COMPLETE)
 		println("ForStat:\t Creating new scope for For Statement.");
-		currentScope = currentScope.newScope();
+		currentScope.newScope();
 		super.visitForStat(bl);
-		currentScope = currentScope.closeScope(); 
+		currentScope.closeScope(); 
 		return null;
 	}
 
 	/** (3) CONSTRUCTOR DECLARATION */
 	public Object visitConstructorDecl(ConstructorDecl bl) {
 		// OUR CODE HERE (COMPLETE)
-		println("ConstructorDecl: Creating new scope for constructor <init> with signature '" + bl.paramSignature() + "' (Parameters and Locals).");
-		currentScope = currentScope.newScope();
+		if (debug)
+			println("ConstructorDecl: Creating new scope for constructor <init> with signature '" + bl.paramSignature() + "' (Parameters and Locals).");
+		currentScope.newScope();
 		
 		bl.params().visit(this);
 		
-		currentScope = currentScope.newScope();
+		currentScope.newScope();
 		
-		if (bl.cinvocation() != null) {
-			bl.cinvocation().visit(this);
-		}
+		if (!skipCode) {
+			if (bl.cinvocation() != null) {
+				bl.cinvocation().visit(this);
+			}
 		
-		bl.body().visit(this);
+			bl.body().visit(this);
+		}
 		
-		currentScope = currentScope.closeScope();
-		currentScope = currentScope.closeScope();
+		currentScope.closeScope();
+		currentScope.closeScope();
 		
 		return null;
 	}
@@ -279,10 +317,11 @@ public class NameChecker extends Visitor {
 	/** (4) METHOD DECLARATION */
 	public Object visitMethodDecl(MethodDecl bl) {
 		// OUR CODE HERE (COMPLETE)
-		println("MethodDecl:\t Creating new scope for Method '"+ bl.getname() + "' with signature '" + bl.paramSignature() + "' (Parameters and Locals).");
-		currentScope = currentScope.newScope();
+		if (debug)
+			println("MethodDecl:\t Creating new scope for Method '"+ bl.getname() + "' with signature '" + bl.paramSignature() + "' (Parameters and Locals).");
+		currentScope.newScope();
 		super.visitMethodDecl(bl);
-		currentScope = currentScope.closeScope(); 
+		currentScope.closeScope(); 
 		return null;
 	}
 
@@ -290,21 +329,22 @@ public class NameChecker extends Visitor {
 	public Object visitSwitchStat(SwitchStat bl) {
 		// OUR CODE HERE (COMPLETE)
 		println("SwitchStat:\t\t Creating new scope for SwitchStat.");
-		currentScope = currentScope.newScope();
+		currentScope.newScope();
 		super.visitSwitchStat(bl);
-		currentScope = currentScope.closeScope(); 
+		currentScope.closeScope(); 
 		return null;
 	}
 
 	/** (6) CLASS DECLARATION */
 	public Object visitClassDecl(ClassDecl cd) {
-		println("ClassDecl:\t Visiting class '"+cd.name()+"'");
+		if (debug)
+			println("ClassDecl:\t Visiting class '"+cd.name()+"'");
 
 		// If we use the field table here as the top scope, then we do not
-		// need to look in the field table when we resolve NameExpr. Note,
-		// at this time we have not yet rewritten NameExprs which are really
-		// FieldRefs with a null target as we have not resolved anything yet.
-		currentScope = cd.fieldTable;
+		// need to look in the field table when we resolve NameExpr. The
+		// NameExprs which are really FieldRefs with a null target are
+		// rewritten as they are resolved (see visitNameExpr).
+		currentScope.reset(cd.fieldTable());
 		currentClass = cd;
 
 		Hashtable<String, Object> seenClasses = new Hashtable<String, Object>();
@@ -322,8 +362,8 @@ public class NameChecker extends Visitor {
 				Error.error(cd, "Class '" + cd.name() + "' cannot extend itself.");
 			// If a superclass has a private default constructor, the 
 			// class cannot be extended.
-			ClassDecl superClass = (ClassDecl)classTable.get(cd.superClass().typeName());
-			SymbolTable st = (SymbolTable)superClass.methodTable.get("<init>");
+			ClassDecl superClass = (ClassDecl)classTable.get(cd.superClass().name().symbol());
+			SymbolTable st = (SymbolTable)superClass.methodTable().get(Symbols.INIT);
 			ConstructorDecl ccd = (ConstructorDecl)st.get("");
 			if (ccd != null && ccd.getModifiers().isPrivate())
 			    Error.error(cd, "Class '" + superClass.className().getname() + "' cannot be extended because it has a private default constructor.");
@@ -332,7 +372,7 @@ public class NameChecker extends Visitor {
 		// Visit the children
 		super.visitClassDecl(cd);
 			
-		currentScope = null;
+		currentScope.reset(null);
 
 		// Check that the interfaces implemented are interfaces.
 		for (int i=0; i<cd.interfaces().nchildren; i++) {
@@ -349,30 +389,28 @@ public class NameChecker extends Visitor {
 		
 		// If the class is not abstract and not an interface it must implement all
 		// the abstract functions of its superclass(es) and its interfaces.
-		if (!cd.isInterface() && !cd.modifiers.isAbstract()) {
-			checkImplementationOfAbstractClasses(cd, methods);
-			// checkImplementationOfAbstractClasses(cd, new Sequence());
-		}
+		checkImplementationOfAbstractClasses(cd, methods);
 		// All field names can only be used once in a class hierarchy
-		checkUniqueFields(new Sequence(), cd);
+		checkUniqueFields(cd);
 		
 		cd.allMethods = methods; // now contains only MethodDecls
 
 		// Fill cd.constructors.
-		SymbolTable st = (SymbolTable)cd.methodTable.get("<init>");
+		cd.constructors = new Sequence();
+		SymbolTable st = (SymbolTable)cd.methodTable().get(Symbols.INIT);
 		ConstructorDecl cod;
 		if (st != null) {
-			for (Enumeration<Object> e = st.entries.elements() ; 
+			for (Enumeration<Object> e = st.elements() ; 
 					e.hasMoreElements(); ) {
 				cod = (ConstructorDecl)e.nextElement();
 				cd.constructors.append(cod);
 			}
 		}
 
-		// needed for rewriting the tree to replace field references
-		// represented by NameExpr.
-		println("ClassDecl:\t Performing tree Rewrite on " + cd.name());
-		new Rewrite().go(cd, cd);
+		// The NameExprs that are fields have been rewritten as they were
+		// resolved; the trace still says so once per class.
+		if (debug)
+			println("ClassDecl:\t Performing tree Rewrite on " + cd.name());
 
 		return null;
 	}
@@ -380,19 +418,21 @@ public class NameChecker extends Visitor {
 	/** (7) LOCAL DECLARATION */
 	public Object visitLocalDecl(LocalDecl bl) {
 		// OUR CODE HERE ("these are one liners") - (COMPLETE)
-		println("LocalDecl:\t Declaring local symbol '" + bl.var() + "'.");
+		if (debug)
+			println("LocalDecl:\t Declaring local symbol '" + bl.var() + "'.");
 		bl.var().myDecl = bl;
 		super.visitLocalDecl(bl);
-		currentScope.put(bl.name(), bl);
+		currentScope.put(bl.symbol(), bl);
 		return null;
 	}
 
 	/** (8) PARAM DELCARATION */
 	public Object visitParamDecl(ParamDecl bl) {
 		// OUR CODE HERE ("these are one liners") - (COMPLETE)
-		println("ParamDecl:\t Declaring parameter '" + bl.paramName() + "'.");
+		if (debug)
+			println("ParamDecl:\t Declaring parameter '" + bl.paramName() + "'.");
 		super.visitParamDecl(bl);
-		currentScope.put(bl.name(), bl);
+		currentScope.put(bl.symbol(), bl);
 		return null;
 	}
 
@@ -414,16 +454,18 @@ public class NameChecker extends Visitor {
 			1) "NameExpr:        Looking up symbol 'a'."
 			2) "Found Local Variable"
 		*/
-		println("NameExpr:\t Looking up symbol '" + bl.name().getname() + "'.");
+		if (debug)
+			println("NameExpr:\t Looking up symbol '" + bl.name().getname() + "'.");
 		
-		AST decl = (AST)currentScope.get(bl.name().getname());
+		int symbol = bl.name().symbol();
+		AST decl = (AST)currentScope.get(symbol);
 		
 		if (decl == null) {
-			decl = getField(bl.name().getname(), currentClass);
+			decl = getField(symbol, currentClass);
 		}
 		
 		if (decl == null) {
-			decl = (AST)classTable.get(bl.name().getname());
+			decl = (AST)classTable.get(symbol);
 			if (decl == null) {
 				Error.error(bl, "Symbol '" + bl.name().getname() + "' not declared.");
 			}
@@ -443,6 +485,12 @@ public class NameChecker extends Visitor {
 		}
 		
 		bl.myDecl = decl;
+
+		// A field is really a FieldRef with a null target; it is replaced by
+		// one in its parent (see replacesChildren()). Only the code has such
+		// NameExprs, so there is nothing to rewrite in a class without code.
+		if (decl instanceof FieldDecl && currentClass.generateCode())
+			return Rewrite.fieldRef(bl, currentClass);
 		return null;
 	}
 
@@ -454,8 +502,9 @@ public class NameChecker extends Visitor {
 		// - expr can be anything only if it (target) is null or an instanceof this -> look in the table of currentClass
 		Expression target = in.target();
 		if (target == null || target instanceof This) {
-			println("Invocation:\t Looking up method '" + in.methodName().getname() + "'.");
-			if (getMethod(in.methodName().getname(), currentClass) == null) {
+			if (debug)
+				println("Invocation:\t Looking up method '" + in.methodName().getname() + "'.");
+			if (getMethod(in.methodName().symbol(), currentClass) == null) {
 				Error.error(in, "Method " + in.methodName().getname() + " not found.");
 			}
 		}
@@ -475,7 +524,7 @@ public class NameChecker extends Visitor {
 		// - expr can be anything only if it (target) is an instanceof this -> look in the table of currentClass (?)
 		Expression target = fr.target();
 		if (target instanceof This) {
-			if (getField(fr.fieldName().getname(), currentClass) == null) {
+			if (getField(fr.fieldName().symbol(), currentClass) == null) {
 				Error.error(fr, "Field " + fr.fieldName().getname() + " not found.");
 			}
 		}
@@ -486,10 +535,14 @@ public class NameChecker extends Visitor {
 	/** (13) CLASS TYPE */
 	public Object visitClassType(ClassType bl) {
 		// OUR CODE HERE ("these are one liners") - (COMPLETE)
-		println("ClassType:\t Looking up class/interface '" + bl.typeName() + "' in class table.");
-		ClassDecl cd = (ClassDecl)classTable.get(bl.name().getname());
+		// The superclasses and interfaces are set already (by MyDeclSet);
+		// all other class types are set here, unless tracing (see
+		// Phases/Phase3.java).
+		if (debug)
+			println("ClassType:\t Looking up class/interface '" + bl.typeName() + "' in class table.");
+		ClassDecl cd = (ClassDecl)classTable.get(bl.name().symbol());
 		if (cd == null) {
-			Error.error(bl, "Class " + bl.name().getname() + " not found.");
+			Error.error(bl, "Class '" + bl.typeName() + "' not found.");
 		}
 		bl.myDecl = cd;
 		return null;
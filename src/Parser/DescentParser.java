@@ -0,0 +1,1027 @@
+package Parser;
+
+import java.io.IOException;
+
+import AST.*;
+import Scanner.Scanner;
+import Utilities.CompilerException;
+import Utilities.Error;
+
+/** A hand-written parser for the grammar in espresso.cup (-descent). It builds
+ * exactly the same parse tree as the CUP parser, but it descends straight to
+ * the construct at hand instead of running the tables, and it parses binary
+ * expressions by precedence climbing, so an operand is not reduced through
+ * the ten levels of conditional_or_expression ... unary_expression on its way
+ * up and nothing is allocated for the productions that only pass a value on.
+ *
+ * Like the CUP parser it looks one token ahead, and a node is made once the
+ * token after it has been read. The tokens are therefore scanned (and printed
+ * by -Ttoken), the include files read and the errors reported in the same
+ * order as with the CUP parser, and a syntax error is reported at the same
+ * token by the same parser.syntax_error().
+ *
+ * Where the grammar needs to see more than one token to choose (a name at
+ * the start of a statement starts a declaration or an expression, 'this' at
+ * the start of a constructor an invocation of another constructor or an
+ * expression), the first token is read and the choice is made on the one
+ * after it.
+ *
+ * Parser/ParserCheck.java compares the two parsers.
+ */
+public class DescentParser {
+	private parser cup;
+	private Scanner lexer;
+	/** The token being looked at. */
+	private java_cup.runtime.Symbol current;
+	/** The last expression that was put in parentheses; it cannot be assigned
+	 * to or be a statement, even if it is a name or an invocation. */
+	private Expression parenthesized;
+
+	public DescentParser(parser cup) {
+		this.cup = cup;
+		this.lexer = cup.lexer;
+	}
+
+	/** Parses a compilation unit (the goal of the grammar). */
+	public Compilation parse() throws IOException {
+		current = lexer.next_token();
+		return compilationUnit();
+	}
+
+	/** Parses the body of a method again (see Reparser.java); the scanner is
+	 * at its '{'. */
+	Block methodBody() throws IOException {
+		current = lexer.next_token();
+		Block body = block();
+		endOfMember();
+		return body;
+	}
+
+	/** Parses the body of constructor cd again (see Reparser.java); the
+	 * scanner is at its '{'. */
+	ConstructorDecl constructorBody(ConstructorDecl cd) throws IOException {
+		current = lexer.next_token();
+		return constructorBody(cd.modifiers(), cd.name(), cd.params());
+	}
+
+	/** The token after the last one parsed. */
+	Token lookahead() {
+		return (Token)current.value;
+	}
+
+	// ------------------------------------------------------------------------
+	// Tokens
+
+	private int kind() {
+		return current.sym;
+	}
+
+	/** Returns the current token and reads the next one. */
+	private Token next() throws IOException {
+		Token t = (Token)current.value;
+		current = lexer.next_token();
+		return t;
+	}
+
+	private Token expect(int kind) throws IOException {
+		if (current.sym != kind)
+			throw syntaxError();
+		return next();
+	}
+
+	/** Reports a syntax error at the current token, which ends the compilation. */
+	private RuntimeException syntaxError() {
+		cup.syntax_error(current);
+		return new CompilerException(1);
+	}
+
+	private static boolean isModifier(int kind) {
+		return kind == sym.PUBLIC || kind == sym.PRIVATE || kind == sym.STATIC ||
+			kind == sym.FINAL || kind == sym.ABSTRACT;
+	}
+
+	private static boolean isPrimitiveType(int kind) {
+		return kind >= sym.BYTE && kind <= sym.STRING;
+	}
+
+	private static boolean isLiteral(int kind) {
+		return (kind >= sym.BOOLEAN_LITERAL && kind <= sym.CHARACTER_LITERAL && kind != sym.IDENTIFIER);
+	}
+
+	/** The tokens an expression can be followed by.
+	 *
+	 * The CUP parser only reduces to a construct when the token after it can
+	 * follow it, and some nodes report errors when they are made: a literal
+	 * that is too large, a cast to something that is not a name, and the
+	 * declarations (their modifiers). Those are made after the same check, so
+	 * that a syntax error right after them is reported instead. */
+	private static boolean followsExpression(int kind) {
+		return precedence(kind) > 0 || kind == sym.QUEST || kind == sym.COLON ||
+			kind == sym.RPAREN || kind == sym.RBRACK || kind == sym.RBRACE ||
+			kind == sym.SEMICOLON || kind == sym.COMMA;
+	}
+
+	// ------------------------------------------------------------------------
+	// Compilation units, classes and interfaces
+
+	private Compilation compilationUnit() throws IOException {
+		Sequence imports = new Sequence();
+		if (kind() == sym.IMPORT) {
+			imports = importFile();
+			while (kind() == sym.IMPORT)
+				imports = imports.merge(importFile());
+		}
+		Sequence types = new Sequence();
+		if (startsTypeDeclaration()) {
+			types = new Sequence(typeDeclaration());
+			while (startsTypeDeclaration())
+				types.append(typeDeclaration());
+		}
+		if (kind() != sym.EOF)
+			throw syntaxError();
+		return new Compilation(types.merge(imports));
+	}
+
+	private boolean startsTypeDeclaration() {
+		return isModifier(kind()) || kind() == sym.CLASS || kind() == sym.INTERFACE;
+	}
+
+	private boolean endsTypeDeclaration() {
+		return startsTypeDeclaration() || kind() == sym.EOF;
+	}
+
+	private Sequence importFile() throws IOException {
+		next();
+		Name name = name();
+		expect(sym.SEMICOLON);
+		if (kind() != sym.IMPORT && !endsTypeDeclaration())
+			throw syntaxError();
+		return cup.getImportFile(name.getname());
+	}
+
+	private ClassDecl typeDeclaration() throws IOException {
+		Sequence modifiers = modifiers(null);
+		if (kind() == sym.CLASS) {
+			next();
+			Name name = name();
+			ClassType superClass = null;
+			if (kind() == sym.EXTENDS) {
+				next();
+				superClass = classType();
+			}
+			Sequence interfaces = new Sequence();
+			if (kind() == sym.IMPLEMENTS) {
+				next();
+				interfaces = classTypes();
+			}
+			Sequence body = classBody(false);
+			if (!endsTypeDeclaration())
+				throw syntaxError();
+			return new ClassDecl(modifiers, name, superClass, interfaces, body, ClassDecl.IS_NOT_INTERFACE);
+		}
+		expect(sym.INTERFACE);
+		Name name = name();
+		Sequence interfaces = new Sequence();
+		if (kind() == sym.EXTENDS) {
+			next();
+			interfaces = classTypes();
+		}
+		Sequence body = classBody(true);
+		if (!endsTypeDeclaration())
+			throw syntaxError();
+		return new ClassDecl(modifiers, name, null, interfaces, body, ClassDecl.IS_INTERFACE);
+	}
+
+	private Sequence classTypes() throws IOException {
+		Sequence types = new Sequence(classType());
+		while (kind() == sym.COMMA) {
+			next();
+			types.append(classType());
+		}
+		return types;
+	}
+
+	/** modifiers_opt: the modifiers that follow the ones in 'modifiers' (null
+	 * if there are none); public if there are none at all. */
+	private Sequence modifiers(Sequence modifiers) throws IOException {
+		while (true) {
+			int modifier;
+			switch (kind()) {
+			case sym.PUBLIC:   modifier = Modifier.Public; break;
+			case sym.PRIVATE:  modifier = Modifier.Private; break;
+			case sym.STATIC:   modifier = Modifier.Static; break;
+			case sym.FINAL:    modifier = Modifier.Final; break;
+			case sym.ABSTRACT: modifier = Modifier.Abstract; break;
+			default:
+				return modifiers == null ? new Sequence(new Modifier(Modifier.Public)) : modifiers;
+			}
+			Modifier m = new Modifier(next(), modifier);
+			modifiers = modifiers == null ? new Sequence(m) : modifiers.append(m);
+		}
+	}
+
+	private Sequence classBody(boolean isInterface) throws IOException {
+		expect(sym.LBRACE);
+		Sequence body = new Sequence();
+		if (kind() != sym.RBRACE) {
+			body = member(isInterface);
+			while (kind() != sym.RBRACE)
+				body.merge(member(isInterface));
+		}
+		next();
+		return body;
+	}
+
+	/** A class_body_declaration or an interface_member_declaration. */
+	private Sequence member(boolean isInterface) throws IOException {
+		Sequence modifiers = null;
+		if (!isInterface && kind() == sym.STATIC) {
+			Token s = next();
+			if (kind() == sym.LBRACE)
+				return new Sequence(new StaticInitDecl(block()));
+			modifiers = new Sequence(new Modifier(s, Modifier.Static));
+		}
+		modifiers = modifiers(modifiers);
+
+		if (kind() == sym.VOID) {
+			Token v = next();
+			Name name = name();
+			return new Sequence(method(modifiers, null, v, name, isInterface));
+		}
+		Type type;
+		if (kind() == sym.IDENTIFIER) {
+			Name name = name();
+			if (!isInterface && kind() == sym.LPAREN)
+				return new Sequence(constructor(modifiers, name));
+			type = classOrArrayType(name);
+		} else
+			type = type();
+		Name name = name();
+		if (kind() == sym.LPAREN)
+			return new Sequence(method(modifiers, type, null, name, isInterface));
+
+		Sequence fields = variableDeclarators(name);
+		expect(sym.SEMICOLON);
+		endOfMember();
+		for (int i = 0; i < fields.nchildren; i++) {
+			Var var = (Var)fields.children[i];
+			fields.children[i] = new FieldDecl(modifiers, declaredType(type, var.name()), var, false);
+		}
+		if (isInterface) {
+			// Constants of interfaces are final and static.
+			for (int i = 0; i < fields.nchildren; i++) {
+				FieldDecl fd = (FieldDecl)fields.children[i];
+				fd.interfaceMember = true;
+				if (!fd.modifiers.isFinal())
+					fd.modifiers.set(false, false, new Modifier(Modifier.Final));
+				if (!fd.modifiers.isStatic())
+					fd.modifiers.set(false, false, new Modifier(Modifier.Static));
+			}
+		}
+		return fields;
+	}
+
+	/** Checks that the token after a member can follow it. */
+	private void endOfMember() {
+		int kind = kind();
+		if (!isModifier(kind) && !isPrimitiveType(kind) && kind != sym.IDENTIFIER &&
+				kind != sym.VOID && kind != sym.RBRACE)
+			throw syntaxError();
+	}
+
+	/** The rest of a method declaration, from the '(' on; the return type is
+	 * either 'returnType' or the 'void' token. */
+	private MethodDecl method(Sequence modifiers, Type returnType, Token v, Name name, boolean isInterface) throws IOException {
+		Sequence params = formalParameters();
+		Block body = null;
+		if (isInterface)
+			expect(sym.SEMICOLON);
+		else if (kind() == sym.SEMICOLON)
+			next();
+		else
+			body = block();
+		endOfMember();
+		if (returnType == null)
+			returnType = new PrimitiveType(v, PrimitiveType.VoidKind);
+		return new MethodDecl(modifiers, returnType, name, params, body,
+				isInterface ? MethodDecl.IS_INTERFACE_MEMBER : MethodDecl.IS_NOT_INTERFACE_MEMBER);
+	}
+
+	private Sequence formalParameters() throws IOException {
+		expect(sym.LPAREN);
+		Sequence params = new Sequence();
+		if (kind() != sym.RPAREN) {
+			params = new Sequence(formalParameter());
+			while (kind() == sym.COMMA) {
+				next();
+				params.append(formalParameter());
+			}
+		}
+		expect(sym.RPAREN);
+		return params;
+	}
+
+	private ParamDecl formalParameter() throws IOException {
+		Type type = type();
+		Name name = declaratorId(name());
+		return new ParamDecl(declaredType(type, name), name);
+	}
+
+	/** The rest of a constructor declaration, from the '(' on. */
+	private ConstructorDecl constructor(Sequence modifiers, Name name) throws IOException {
+		return constructorBody(modifiers, name, formalParameters());
+	}
+
+	/** The rest of a constructor declaration, from the '{' on. */
+	private ConstructorDecl constructorBody(Sequence modifiers, Name name, Sequence params) throws IOException {
+		expect(sym.LBRACE);
+		CInvocation invocation = null;
+		Sequence statements = null;
+		if (kind() == sym.SUPER || kind() == sym.THIS) {
+			Token t = next();
+			if (kind() == sym.LPAREN) {
+				Sequence args = arguments();
+				expect(sym.SEMICOLON);
+				invocation = new CInvocation(t, args);
+			} else {
+				Expression head = t.sym == sym.THIS ? new This(t) : superAccess(t);
+				Expression e = statementExpression(postfix(primaryRest(head, false)));
+				expect(sym.SEMICOLON);
+				statements = new Sequence(new ExprStat(e));
+			}
+		}
+		if (kind() != sym.RBRACE) {
+			if (statements == null)
+				statements = blockStatement();
+			while (kind() != sym.RBRACE)
+				statements.merge(blockStatement());
+		}
+		next();
+		endOfMember();
+		if (statements == null)
+			statements = new Sequence();
+		return new ConstructorDecl(modifiers, name, params, invocation, statements);
+	}
+
+	// ------------------------------------------------------------------------
+	// Types, names and variables
+
+	private Name name() throws IOException {
+		return new Name(expect(sym.IDENTIFIER));
+	}
+
+	private Type type() throws IOException {
+		if (kind() == sym.IDENTIFIER)
+			return classOrArrayType(name());
+		PrimitiveType t = primitiveType();
+		if (kind() == sym.LBRACK)
+			return new ArrayType(t, dims().nchildren);
+		return t;
+	}
+
+	/** The type named 'name', or an array of it if dims follow. */
+	private Type classOrArrayType(Name name) throws IOException {
+		if (kind() == sym.LBRACK)
+			return new ArrayType(new ClassType(name), dims().nchildren);
+		return new ClassType(name);
+	}
+
+	private ClassType classType() throws IOException {
+		return new ClassType(name());
+	}
+
+	private PrimitiveType primitiveType() throws IOException {
+		int kind;
+		switch (kind()) {
+		case sym.BOOLEAN: kind = PrimitiveType.BooleanKind; break;
+		case sym.BYTE:    kind = PrimitiveType.ByteKind; break;
+		case sym.SHORT:   kind = PrimitiveType.ShortKind; break;
+		case sym.INT:     kind = PrimitiveType.IntKind; break;
+		case sym.LONG:    kind = PrimitiveType.LongKind; break;
+		case sym.FLOAT:   kind = PrimitiveType.FloatKind; break;
+		case sym.DOUBLE:  kind = PrimitiveType.DoubleKind; break;
+		case sym.CHAR:    kind = PrimitiveType.CharKind; break;
+		case sym.STRING:  kind = PrimitiveType.StringKind; break;
+		default:
+			throw syntaxError();
+		}
+		return new PrimitiveType(next(), kind);
+	}
+
+	/** One or more []. */
+	private Sequence dims() throws IOException {
+		expect(sym.LBRACK);
+		return dimsRest();
+	}
+
+	/** dims, of which the first '[' has been read. */
+	private Sequence dimsRest() throws IOException {
+		expect(sym.RBRACK);
+		Sequence dims = new Sequence(null);
+		while (kind() == sym.LBRACK) {
+			next();
+			expect(sym.RBRACK);
+			dims.append(null);
+		}
+		return dims;
+	}
+
+	/** variable_declarator_id: the name, and the [] after it. */
+	private Name declaratorId(Name name) throws IOException {
+		while (kind() == sym.LBRACK) {
+			next();
+			expect(sym.RBRACK);
+			name.setArrayDepth(name.getArrayDepth() + 1);
+		}
+		return name;
+	}
+
+	/** The type of a variable declared as 'name' in a declaration of type
+	 * 'type': in 'int a[]' a is an int[]. */
+	private static Type declaredType(Type type, Name name) {
+		if (name.getArrayDepth() == 0)
+			return type;
+		Type at;
+		if (type.isArrayType()) {
+			ArrayType att = (ArrayType)type;
+			at = new ArrayType(att.baseType(), att.getDepth() + name.getArrayDepth());
+		} else
+			at = new ArrayType(type, name.getArrayDepth());
+		name.setArrayDepth(0);
+		return at;
+	}
+
+	/** The Vars of variable_declarators, the name of the first one read. */
+	private Sequence variableDeclarators(Name first) throws IOException {
+		Sequence vars = new Sequence(variableDeclarator(first));
+		while (kind() == sym.COMMA) {
+			next();
+			vars.append(variableDeclarator(name()));
+		}
+		return vars;
+	}
+
+	private Var variableDeclarator(Name name) throws IOException {
+		name = declaratorId(name);
+		if (kind() != sym.EQ)
+			return new Var(name);
+		next();
+		return new Var(name, variableInitializer());
+	}
+
+	private Expression variableInitializer() throws IOException {
+		return kind() == sym.LBRACE ? arrayInitializer() : expression();
+	}
+
+	private ArrayLiteral arrayInitializer() throws IOException {
+		expect(sym.LBRACE);
+		Sequence values = new Sequence();
+		if (kind() != sym.RBRACE) {
+			values = new Sequence(variableInitializer());
+			while (kind() == sym.COMMA) {
+				next();
+				values.append(variableInitializer());
+			}
+		}
+		expect(sym.RBRACE);
+		return new ArrayLiteral(values);
+	}
+
+	/** A local_variable_declaration of the given type: its LocalDecls. */
+	private Sequence locals(Type type) throws IOException {
+		Sequence locals = variableDeclarators(name());
+		for (int i = 0; i < locals.nchildren; i++) {
+			Var var = (Var)locals.children[i];
+			locals.children[i] = new LocalDecl(declaredType(type, var.name()), var);
+		}
+		return locals;
+	}
+
+	// ------------------------------------------------------------------------
+	// Blocks and statements
+
+	private Block block() throws IOException {
+		expect(sym.LBRACE);
+		Sequence statements = new Sequence();
+		if (kind() != sym.RBRACE) {
+			statements = blockStatement();
+			while (kind() != sym.RBRACE)
+				statements.merge(blockStatement());
+		}
+		next();
+		return new Block(statements);
+	}
+
+	private Sequence blockStatement() throws IOException {
+		if (isPrimitiveType(kind())) {
+			Sequence locals = locals(type());
+			expect(sym.SEMICOLON);
+			return locals;
+		}
+		if (kind() == sym.IDENTIFIER) {
+			AST a = localsOrExpression(name());
+			expect(sym.SEMICOLON);
+			if (a instanceof Sequence)
+				return (Sequence)a;
+			return new Sequence(new ExprStat((Expression)a));
+		}
+		return new Sequence(statement());
+	}
+
+	/** What a block statement or a for init that starts with 'name' is: the
+	 * LocalDecls of a declaration, or a statement expression. */
+	private AST localsOrExpression(Name name) throws IOException {
+		if (kind() == sym.IDENTIFIER)
+			return locals(new ClassType(name));
+		if (kind() == sym.LBRACK) {
+			next();
+			if (kind() == sym.RBRACK)
+				return locals(new ArrayType(new ClassType(name), dimsRest().nchildren));
+			Expression index = expression();
+			expect(sym.RBRACK);
+			return statementExpression(postfix(primaryRest(new ArrayAccessExpr(new NameExpr(name), index), false)));
+		}
+		return statementExpression(postfix(nameRest(name)));
+	}
+
+	private Statement statement() throws IOException {
+		switch (kind()) {
+		case sym.LBRACE:
+			return block();
+		case sym.SEMICOLON:
+			next();
+			return null;
+		case sym.IF: {
+			next();
+			Expression e = condition();
+			Statement thenPart = statement();
+			if (kind() != sym.ELSE)
+				return new IfStat(e, thenPart);
+			next();
+			return new IfStat(e, thenPart, statement());
+		}
+		case sym.WHILE: {
+			next();
+			Expression e = condition();
+			return new WhileStat(e, statement());
+		}
+		case sym.DO: {
+			next();
+			Statement s = statement();
+			expect(sym.WHILE);
+			Expression e = condition();
+			expect(sym.SEMICOLON);
+			return new DoStat(s, e);
+		}
+		case sym.FOR: {
+			Token f = next();
+			expect(sym.LPAREN);
+			Sequence init = kind() == sym.SEMICOLON ? new Sequence() : forInit();
+			expect(sym.SEMICOLON);
+			Expression e = kind() == sym.SEMICOLON ? null : expression();
+			expect(sym.SEMICOLON);
+			Sequence update = kind() == sym.RPAREN ? new Sequence() : statementExpressions(statementExpression());
+			expect(sym.RPAREN);
+			return new ForStat(f, init, e, update, statement());
+		}
+		case sym.SWITCH: {
+			next();
+			Expression e = condition();
+			expect(sym.LBRACE);
+			Sequence groups = new Sequence();
+			if (kind() != sym.RBRACE) {
+				groups = new Sequence(switchGroup());
+				while (kind() != sym.RBRACE)
+					groups.append(switchGroup());
+			}
+			next();
+			return new SwitchStat(e, groups);
+		}
+		case sym.BREAK: {
+			Token b = next();
+			expect(sym.SEMICOLON);
+			return new BreakStat(b);
+		}
+		case sym.CONTINUE: {
+			Token c = next();
+			expect(sym.SEMICOLON);
+			return new ContinueStat(c);
+		}
+		case sym.RETURN: {
+			Token r = next();
+			Expression e = kind() == sym.SEMICOLON ? null : expression();
+			expect(sym.SEMICOLON);
+			return new ReturnStat(r, e);
+		}
+		default: {
+			Expression e = statementExpression();
+			expect(sym.SEMICOLON);
+			return new ExprStat(e);
+		}
+		}
+	}
+
+	/** ( expression ) */
+	private Expression condition() throws IOException {
+		expect(sym.LPAREN);
+		Expression e = expression();
+		expect(sym.RPAREN);
+		return e;
+	}
+
+	private Sequence forInit() throws IOException {
+		if (isPrimitiveType(kind()))
+			return locals(type());
+		if (kind() == sym.IDENTIFIER) {
+			AST a = localsOrExpression(name());
+			if (a instanceof Sequence)
+				return (Sequence)a;
+			return statementExpressions((Expression)a);
+		}
+		return statementExpressions(statementExpression());
+	}
+
+	/** A statement_expression_list, the first expression read. */
+	private Sequence statementExpressions(Expression first) throws IOException {
+		Sequence list = new Sequence(new ExprStat(first));
+		while (kind() == sym.COMMA) {
+			next();
+			list.append(new ExprStat(statementExpression()));
+		}
+		return list;
+	}
+
+	private SwitchGroup switchGroup() throws IOException {
+		Sequence labels = new Sequence(switchLabel());
+		while (kind() == sym.CASE || kind() == sym.DEFAULT)
+			labels.append(switchLabel());
+		Sequence statements = blockStatement();
+		while (kind() != sym.CASE && kind() != sym.DEFAULT && kind() != sym.RBRACE)
+			statements.merge(blockStatement());
+		return new SwitchGroup(labels, statements);
+	}
+
+	private SwitchLabel switchLabel() throws IOException {
+		if (kind() == sym.DEFAULT) {
+			next();
+			expect(sym.COLON);
+			return new SwitchLabel(null, true);
+		}
+		expect(sym.CASE);
+		Expression e = expression();
+		expect(sym.COLON);
+		return new SwitchLabel(e, false);
+	}
+
+	/** statement_expression: an assignment, ++ or -- or an invocation or
+	 * an object creation, in which parentheses cannot come first. */
+	private Expression statementExpression() throws IOException {
+		switch (kind()) {
+		case sym.PLUSPLUS:
+		case sym.MINUSMINUS:
+			return unary();
+		case sym.LPAREN: {
+			next();
+			Expression e = expression();
+			expect(sym.RPAREN);
+			parenthesized = e;
+			return statementExpression(postfix(primaryRest(e, false)));
+		}
+		default:
+			return statementExpression(postfix(primary()));
+		}
+	}
+
+	/** statement_expression, of which the postfix expression e has been read. */
+	private Expression statementExpression(Expression e) throws IOException {
+		if (isAssignmentOperator(kind()))
+			return assignment(e);
+		if (e == parenthesized || !(e instanceof Invocation || e instanceof New || e instanceof UnaryPostExpr))
+			throw syntaxError();
+		return e;
+	}
+
+	// ------------------------------------------------------------------------
+	// Expressions
+
+	private Expression expression() throws IOException {
+		return assignment(unary());
+	}
+
+	/** assignment_expression, of which the unary expression e has been read. */
+	private Expression assignment(Expression e) throws IOException {
+		if (!isAssignmentOperator(kind()))
+			return conditional(e);
+		if (e == parenthesized || !(e instanceof NameExpr || e instanceof FieldRef || e instanceof ArrayAccessExpr))
+			throw syntaxError();
+		Token t = next();
+		AssignmentOp op = new AssignmentOp(t, assignmentOperator(t.sym));
+		return new Assignment(e, expression(), op);
+	}
+
+	/** conditional_expression, of which the unary expression e has been read. */
+	private Expression conditional(Expression e) throws IOException {
+		e = binary(e, 1);
+		if (kind() != sym.QUEST)
+			return e;
+		next();
+		Expression trueBranch = expression();
+		expect(sym.COLON);
+		return new Ternary(e, trueBranch, conditional(unary()));
+	}
+
+	/** The binary operators of precedence 'min' and up that follow 'left'. */
+	private Expression binary(Expression left, int min) throws IOException {
+		int precedence;
+		while ((precedence = precedence(kind())) >= min) {
+			Token op = next();
+			if (op.sym == sym.INSTANCEOF) {
+				left = new BinaryExpr(left, new NameExpr(name()), new BinOp(op, BinOp.INSTANCEOF));
+				// Only a relational_expression can be on the left of an
+				// instanceof, so it cannot be an operand of + and such.
+				if (precedence(kind()) > precedence)
+					throw syntaxError();
+			} else {
+				Expression right = binary(unary(), precedence + 1);
+				left = new BinaryExpr(left, right, new BinOp(op, binaryOperator(op.sym)));
+			}
+		}
+		return left;
+	}
+
+	/** The precedence of a binary operator, from || (1) to * (10); 0 for
+	 * tokens that are not binary operators. */
+	private static int precedence(int kind) {
+		switch (kind) {
+		case sym.OROR:       return 1;
+		case sym.ANDAND:     return 2;
+		case sym.OR:         return 3;
+		case sym.XOR:        return 4;
+		case sym.AND:        return 5;
+		case sym.EQEQ:
+		case sym.NOTEQ:      return 6;
+		case sym.LT:
+		case sym.GT:
+		case sym.LTEQ:
+		case sym.GTEQ:
+		case sym.INSTANCEOF: return 7;
+		case sym.LSHIFT:
+		case sym.RSHIFT:
+		case sym.RRSHIFT:    return 8;
+		case sym.PLUS:
+		case sym.MINUS:      return 9;
+		case sym.MULT:
+		case sym.DIV:
+		case sym.MOD:        return 10;
+		default:             return 0;
+		}
+	}
+
+	private static int binaryOperator(int kind) {
+		switch (kind) {
+		case sym.OROR:    return BinOp.OROR;
+		case sym.ANDAND:  return BinOp.ANDAND;
+		case sym.OR:      return BinOp.OR;
+		case sym.XOR:     return BinOp.XOR;
+		case sym.AND:     return BinOp.AND;
+		case sym.EQEQ:    return BinOp.EQEQ;
+		case sym.NOTEQ:   return BinOp.NOTEQ;
+		case sym.LT:      return BinOp.LT;
+		case sym.GT:      return BinOp.GT;
+		case sym.LTEQ:    return BinOp.LTEQ;
+		case sym.GTEQ:    return BinOp.GTEQ;
+		case sym.LSHIFT:  return BinOp.LSHIFT;
+		case sym.RSHIFT:  return BinOp.RSHIFT;
+		case sym.RRSHIFT: return BinOp.RRSHIFT;
+		case sym.PLUS:    return BinOp.PLUS;
+		case sym.MINUS:   return BinOp.MINUS;
+		case sym.MULT:    return BinOp.MULT;
+		case sym.DIV:     return BinOp.DIV;
+		default:          return BinOp.MOD;
+		}
+	}
+
+	private static boolean isAssignmentOperator(int kind) {
+		return assignmentOperator(kind) != 0;
+	}
+
+	private static int assignmentOperator(int kind) {
+		switch (kind) {
+		case sym.EQ:        return AssignmentOp.EQ;
+		case sym.MULTEQ:    return AssignmentOp.MULTEQ;
+		case sym.DIVEQ:     return AssignmentOp.DIVEQ;
+		case sym.MODEQ:     return AssignmentOp.MODEQ;
+		case sym.PLUSEQ:    return AssignmentOp.PLUSEQ;
+		case sym.MINUSEQ:   return AssignmentOp.MINUSEQ;
+		case sym.LSHIFTEQ:  return AssignmentOp.LSHIFTEQ;
+		case sym.RSHIFTEQ:  return AssignmentOp.RSHIFTEQ;
+		case sym.RRSHIFTEQ: return AssignmentOp.RRSHIFTEQ;
+		case sym.ANDEQ:     return AssignmentOp.ANDEQ;
+		case sym.XOREQ:     return AssignmentOp.XOREQ;
+		case sym.OREQ:      return AssignmentOp.OREQ;
+		default:            return 0;
+		}
+	}
+
+	private Expression unary() throws IOException {
+		switch (kind()) {
+		case sym.PLUSPLUS:   return prefix(PreOp.PLUSPLUS);
+		case sym.MINUSMINUS: return prefix(PreOp.MINUSMINUS);
+		case sym.PLUS:       return prefix(PreOp.PLUS);
+		case sym.MINUS:      return prefix(PreOp.MINUS);
+		default:             return unaryNotPlusMinus();
+		}
+	}
+
+	private Expression prefix(int operator) throws IOException {
+		Token op = next();
+		Expression e = unary();
+		return new UnaryPreExpr(e, new PreOp(op, operator));
+	}
+
+	private Expression unaryNotPlusMinus() throws IOException {
+		switch (kind()) {
+		case sym.COMP:
+			return prefix(PreOp.COMP);
+		case sym.NOT:
+			return prefix(PreOp.NOT);
+		case sym.LPAREN: {
+			next();
+			if (isPrimitiveType(kind())) {
+				PrimitiveType type = primitiveType();
+				expect(sym.RPAREN);
+				return new CastExpr(type, unary());
+			}
+			Expression e = expression();
+			expect(sym.RPAREN);
+			if (!startsUnaryNotPlusMinus(kind())) {
+				parenthesized = e;
+				return postfix(primaryRest(e, false));
+			}
+			Expression operand = unaryNotPlusMinus();
+			if (!followsExpression(kind()))
+				throw syntaxError();
+			if (!(e instanceof NameExpr))
+				Error.error("Error: (Class) name expected in cast");
+			return new CastExpr(new ClassType(((NameExpr)e).name()), operand);
+		}
+		default:
+			return postfix(primary());
+		}
+	}
+
+	private static boolean startsUnaryNotPlusMinus(int kind) {
+		return isLiteral(kind) || kind == sym.IDENTIFIER || kind == sym.THIS ||
+			kind == sym.SUPER || kind == sym.NEW || kind == sym.LPAREN ||
+			kind == sym.COMP || kind == sym.NOT;
+	}
+
+	/** The ++ and -- that follow e. */
+	private Expression postfix(Expression e) throws IOException {
+		while (kind() == sym.PLUSPLUS || kind() == sym.MINUSMINUS) {
+			Token op = next();
+			e = new UnaryPostExpr(e, new PostOp(op, op.sym == sym.PLUSPLUS ? PostOp.PLUSPLUS : PostOp.MINUSMINUS));
+		}
+		return e;
+	}
+
+	/** A primary that does not start with '(', or a name. */
+	private Expression primary() throws IOException {
+		switch (kind()) {
+		case sym.THIS:
+			return primaryRest(new This(next()), false);
+		case sym.SUPER:
+			return primaryRest(superAccess(next()), false);
+		case sym.NEW:
+			return creation();
+		case sym.IDENTIFIER:
+			return nameRest(name());
+		default:
+			if (isLiteral(kind()))
+				return primaryRest(literal(), false);
+			throw syntaxError();
+		}
+	}
+
+	private Literal literal() throws IOException {
+		int kind;
+		switch (kind()) {
+		case sym.INTEGER_LITERAL:   kind = Literal.IntKind; break;
+		case sym.LONG_LITERAL:      kind = Literal.LongKind; break;
+		case sym.FLOAT_LITERAL:     kind = Literal.FloatKind; break;
+		case sym.DOUBLE_LITERAL:    kind = Literal.DoubleKind; break;
+		case sym.BOOLEAN_LITERAL:   kind = Literal.BooleanKind; break;
+		case sym.STRING_LITERAL:    kind = Literal.StringKind; break;
+		case sym.NULL_LITERAL:      kind = Literal.NullKind; break;
+		default:                    kind = Literal.CharKind; break;
+		}
+		Token t = next();
+		// A literal that is too large is reported when it is made.
+		if (!followsExpression(kind()) && kind() != sym.DOT && kind() != sym.LBRACK &&
+				kind() != sym.PLUSPLUS && kind() != sym.MINUSMINUS)
+			throw syntaxError();
+		return new Literal(t, kind);
+	}
+
+	/** super.name or super.name(...), the 'super' read. */
+	private Expression superAccess(Token s) throws IOException {
+		expect(sym.DOT);
+		Name name = name();
+		if (kind() == sym.LPAREN)
+			return new Invocation(new Super(s), name, arguments());
+		return new FieldRef(new Super(s), name);
+	}
+
+	/** What follows a name in an expression: an invocation, a field, an
+	 * array element, or nothing (a NameExpr, which is not a primary). */
+	private Expression nameRest(Name name) throws IOException {
+		switch (kind()) {
+		case sym.LPAREN:
+			return primaryRest(new Invocation(name, arguments()), false);
+		case sym.DOT: {
+			next();
+			Name field = name();
+			if (kind() == sym.LPAREN)
+				return primaryRest(new Invocation(new NameExpr(name), field, arguments()), false);
+			return primaryRest(new FieldRef(new NameExpr(name), field), false);
+		}
+		case sym.LBRACK: {
+			next();
+			Expression index = expression();
+			expect(sym.RBRACK);
+			return primaryRest(new ArrayAccessExpr(new NameExpr(name), index), false);
+		}
+		default:
+			return new NameExpr(name);
+		}
+	}
+
+	/** The field accesses, invocations and array accesses that follow the
+	 * primary p; a new array cannot be indexed without parentheses. */
+	private Expression primaryRest(Expression p, boolean newArray) throws IOException {
+		while (true) {
+			if (kind() == sym.DOT) {
+				next();
+				Name name = name();
+				if (kind() == sym.LPAREN)
+					p = new Invocation(p, name, arguments());
+				else
+					p = new FieldRef(p, name);
+			} else if (kind() == sym.LBRACK && !newArray) {
+				next();
+				Expression index = expression();
+				expect(sym.RBRACK);
+				p = new ArrayAccessExpr(p, index);
+			} else
+				return p;
+			newArray = false;
+		}
+	}
+
+	private Sequence arguments() throws IOException {
+		expect(sym.LPAREN);
+		Sequence args = new Sequence();
+		if (kind() != sym.RPAREN) {
+			args = new Sequence(expression());
+			while (kind() == sym.COMMA) {
+				next();
+				args.append(expression());
+			}
+		}
+		expect(sym.RPAREN);
+		return args;
+	}
+
+	/** new C(...), or a new array. */
+	private Expression creation() throws IOException {
+		next();
+		if (kind() != sym.IDENTIFIER)
+			return arrayCreation(primitiveType());
+		ClassType type = classType();
+		if (kind() == sym.LPAREN)
+			return primaryRest(new New(type, arguments()), false);
+		return arrayCreation(type);
+	}
+
+	private Expression arrayCreation(Type type) throws IOException {
+		expect(sym.LBRACK);
+		if (kind() == sym.RBRACK) {
+			Sequence dims = dimsRest();
+			ArrayLiteral init = arrayInitializer();
+			return primaryRest(new NewArray(type, new Sequence(), dims, init), true);
+		}
+		Sequence dimExprs = new Sequence(expression());
+		expect(sym.RBRACK);
+		Sequence dims = new Sequence();
+		while (kind() == sym.LBRACK) {
+			next();
+			if (kind() == sym.RBRACK) {
+				dims = dimsRest();
+				break;
+			}
+			dimExprs.append(expression());
+			expect(sym.RBRACK);
+		}
+		return primaryRest(new NewArray(type, dimExprs, dims, null), true);
+	}
+}
@@ -0,0 +1,176 @@
+package Parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import AST.*;
+import Scanner.Scanner;
+import Utilities.CompilerContext;
+import Utilities.CompilerException;
+import Utilities.Diagnostic;
+import Utilities.DiagnosticSink;
+import Utilities.ImportCache;
+import Utilities.SourceFile;
+
+/** Finds the include files a file imports, directly or through other include
+ * files, before the file is parsed, and parses them all at the same time
+ * into the ImportCache. The imports are found by only looking at the import
+ * declarations at the top of each file.
+ *
+ * The parser still asks for the include files one at a time as it reduces
+ * the import declarations (see parser.getImportFile()), so their classes
+ * end up in the same order as before; it just finds the files parsed
+ * already, or waits for the thread that is parsing them.
+ */
+public class ImportResolver {
+	/** Parses an include file for the ImportCache: only the signatures of its
+	 * classes, and not the files it imports. */
+	public static final ImportCache.Loader LOADER = new ImportCache.Loader() {
+		public ImportCache.Entry load(SourceFile source) throws Exception {
+			Scanner s1 = new Scanner(source);
+			s1.signaturesOnly = true;
+			parser p1 = new parser(s1);
+			p1.importNames = new ArrayList<String>();
+			Sequence types = ((Compilation)p1.parse().value).types();
+			for (int i=0; i<types.nchildren; i++)
+				((ClassDecl)types.children[i]).doNotGenerateCode();
+			return new ImportCache.Entry(types, p1.importNames);
+		}
+	};
+
+	/** The threads the include files are parsed on; shared by all the
+	 * compilations (of a batch, or of the compile server). */
+	private static ExecutorService pool;
+
+	private static synchronized ExecutorService pool() {
+		if (pool == null)
+			pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "import-resolver");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		return pool;
+	}
+
+	/** Remembers if an include file had errors; they are not reported here. */
+	private static class Errors implements DiagnosticSink {
+		boolean found = false;
+
+		public void report(Diagnostic d) {
+			found = true;
+		}
+	}
+
+	/**
+	 * Starts parsing all the include files 'source' needs. Files that cannot
+	 * be read or parsed are left to the parser, which reports the error.
+	 *
+	 * @param context the compilation 'source' belongs to.
+	 * @param source  the text of the file about to be parsed.
+	 */
+	public static void resolve(CompilerContext context, SourceFile source) {
+		if (context.importCache == null)
+			return;
+		ArrayList<String> names = imports(source);
+		HashSet<String> seen = new HashSet<String>();
+		for (int i = 0; i < names.size(); i++) {
+			String name = names.get(i);
+			if (!seen.add(name))
+				continue;
+			File file = context.resolve(context.includeDir + "/" + name + ".java");
+			try {
+				names.addAll(imports(SourceFile.read(file)));
+			} catch (IOException e) {
+				continue;
+			}
+			load(context, file);
+		}
+	}
+
+	/** Parses 'file' into the cache of context on one of the threads. */
+	private static void load(CompilerContext context, final File file) {
+		final ImportCache cache = context.importCache;
+		final CompilerContext worker = new CompilerContext(context);
+		final Errors errors = new Errors();
+		worker.setSink(errors);
+		pool().execute(new Runnable() {
+			public void run() {
+				CompilerContext previous = worker.bind();
+				try {
+					cache.get(file, new ImportCache.Loader() {
+						public ImportCache.Entry load(SourceFile source) throws Exception {
+							ImportCache.Entry entry = LOADER.load(source);
+							// Not cached, so the parser reports the errors itself.
+							if (errors.found)
+								throw new CompilerException(1);
+							return entry;
+						}
+					});
+				} catch (Exception e) {
+					// The parser parses the file again and reports the error.
+				} finally {
+					CompilerContext.unbind(previous);
+				}
+			}
+		});
+	}
+
+	/** The names in the import declarations at the top of 'source'. Looking
+	 * stops at the first thing that is not a comment or an import
+	 * declaration; the parser finds any errors there. */
+	static ArrayList<String> imports(SourceFile source) {
+		ArrayList<String> names = new ArrayList<String>();
+		char text[] = source.text;
+		int i = skip(text, 0, source.length);
+		while (word(text, i, source.length, "import")) {
+			i = skip(text, i + 6, source.length);
+			int start = i;
+			if (i < source.length && Character.isJavaIdentifierStart(text[i]))
+				while (i < source.length && Character.isJavaIdentifierPart(text[i]))
+					i++;
+			if (i == start)
+				break;
+			String name = new String(text, start, i - start);
+			i = skip(text, i, source.length);
+			if (i == source.length || text[i] != ';')
+				break;
+			names.add(name);
+			i = skip(text, i + 1, source.length);
+		}
+		return names;
+	}
+
+	/** Skips white space and comments. */
+	private static int skip(char text[], int i, int length) {
+		while (i < length) {
+			if (Character.isWhitespace(text[i]))
+				i++;
+			else if (text[i] == '/' && i + 1 < length && text[i+1] == '/') {
+				while (i < length && text[i] != '\n' && text[i] != '\r')
+					i++;
+			} else if (text[i] == '/' && i + 1 < length && text[i+1] == '*') {
+				i += 2;
+				while (i + 1 < length && (text[i] != '*' || text[i+1] != '/'))
+					i++;
+				i += 2;
+			} else
+				break;
+		}
+		return Math.min(i, length);
+	}
+
+	/** True if the keyword 'word' starts at i. */
+	private static boolean word(char text[], int i, int length, String word) {
+		int end = i + word.length();
+		if (end > length || !new String(text, i, word.length()).equals(word))
+			return false;
+		return end == length || !Character.isJavaIdentifierPart(text[end]);
+	}
+}
@@ -0,0 +1,108 @@
+package Parser;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import Scanner.Scanner;
+import Utilities.ASTCodec;
+import Utilities.CompilerContext;
+import Utilities.CompilerException;
+import Utilities.Diagnostic;
+import Utilities.DiagnosticSink;
+import Utilities.SourceFile;
+
+/** Parses every .java file in the given directories (Tests by default) with
+ * both the CUP parser and DescentParser.java, and checks that the two build
+ * the same parse tree, find the same imports and report the same errors.
+ * The trees are compared the way ASTCodec.java writes them, so every field
+ * of every node counts, line numbers included. The imports are not read.
+ *
+ * 'ant parsercheck' runs it on Tests; the exit status is 1 if any file
+ * differs.
+ */
+public class ParserCheck {
+	/** What parsing a file gave. */
+	private static class Result {
+		byte tree[];
+		String imports = "";
+		StringBuilder messages = new StringBuilder();
+		long time;
+	}
+
+	public static void main(String args[]) {
+		if (args.length == 0)
+			args = new String[] { "Tests" };
+		ArrayList<File> files = new ArrayList<File>();
+		for (int i = 0; i < args.length; i++)
+			collect(new File(args[i]), files);
+
+		int differ = 0;
+		long cupTime = 0, descentTime = 0;
+		for (File file : files) {
+			Result cup = parse(file, false);
+			Result descent = parse(file, true);
+			cupTime += cup.time;
+			descentTime += descent.time;
+			String what = null;
+			if (!cup.messages.toString().equals(descent.messages.toString()))
+				what = "messages";
+			else if (!cup.imports.equals(descent.imports))
+				what = "imports";
+			else if (!Arrays.equals(cup.tree, descent.tree))
+				what = "parse trees";
+			if (what != null) {
+				differ++;
+				System.out.println(file + ": the " + what + " differ.");
+				System.out.print("  CUP:\n" + cup.imports + "\n" + cup.messages);
+				System.out.print("  Descent:\n" + descent.imports + "\n" + descent.messages);
+			}
+		}
+		System.out.println(files.size() + " files parsed, " + differ + " differ (CUP " +
+				cupTime / 1000000 + " ms, descent " + descentTime / 1000000 + " ms).");
+		System.exit(differ == 0 ? 0 : 1);
+	}
+
+	private static void collect(File file, ArrayList<File> files) {
+		if (file.isDirectory()) {
+			String names[] = file.list();
+			Arrays.sort(names);
+			for (int i = 0; i < names.length; i++)
+				collect(new File(file, names[i]), files);
+		} else if (file.getName().endsWith(".java"))
+			files.add(file);
+	}
+
+	private static Result parse(File file, boolean descent) {
+		final Result result = new Result();
+		CompilerContext context = new CompilerContext();
+		context.fileName = file.getPath();
+		context.descentParser = descent;
+		context.setSink(new DiagnosticSink() {
+			public void report(Diagnostic d) {
+				result.messages.append(d).append('\n');
+			}
+		});
+		CompilerContext previous = context.bind();
+		try {
+			SourceFile source = SourceFile.read(file);
+			long start = System.nanoTime();
+			parser p = new parser(new Scanner(source));
+			p.importNames = new ArrayList<String>();
+			try {
+				Object tree = p.parse().value;
+				result.time = System.nanoTime() - start;
+				result.tree = ASTCodec.encode(tree);
+			} finally {
+				result.imports = p.importNames.toString();
+			}
+		} catch (CompilerException e) {
+			// Reported to the sink.
+		} catch (Exception e) {
+			result.messages.append(e).append('\n');
+		} finally {
+			CompilerContext.unbind(previous);
+		}
+		return result;
+	}
+}
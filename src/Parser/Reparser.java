@@ -0,0 +1,176 @@
+package Parser;
+
+import java.util.IdentityHashMap;
+
+import AST.*;
+import Scanner.Scanner;
+import Utilities.ASTCodec;
+import Utilities.CompilerContext;
+import Utilities.Diagnostic;
+import Utilities.DiagnosticSink;
+import Utilities.LineIndex;
+import Utilities.SourceFile;
+
+/** Makes the parse tree of a file that was edited from the parse tree of the
+ * file before the edit (-watch). When all that changed is inside the body
+ * of one method or constructor, only that body is scanned and parsed again
+ * (by DescentParser.java) and put in place of the old one; the nodes after
+ * it are moved to the lines and columns they are on now. The body is found
+ * from the position of the name of its method, as the parser left it in
+ * 'line' and 'charBegin'; blocks do not know where their braces are, so the
+ * body of a method is as small as it gets.
+ *
+ * The tree is exactly the one the parser would have made; anything else
+ * (an edit outside a body, a body that no longer parses) makes reparse()
+ * return null and the file is parsed as usual, which reports the errors.
+ * Which classes have to be checked again is then up to the incremental
+ * compilation (see Utilities/DependencyGraph.java).
+ */
+public class Reparser {
+	/** Collects nothing but whether there were any errors. */
+	private static class Errors implements DiagnosticSink {
+		boolean found = false;
+
+		public void report(Diagnostic d) {
+			found = true;
+		}
+	}
+
+	/**
+	 * The parse tree of 'source', made from the one of 'previous'.
+	 *
+	 * @param options  the options of the compilation.
+	 * @param previous the text the tree was parsed from.
+	 * @param tree     the tree as the parser made it (ASTCodec.encode()).
+	 * @param source   the text now.
+	 * @return the tree of source, or null if it must be parsed in full.
+	 */
+	public static Compilation reparse(CompilerContext options, SourceFile previous, byte tree[], SourceFile source) {
+		char before[] = previous.text, after[] = source.text;
+		int shortest = Math.min(previous.length, source.length);
+		// The edit replaced before[start, end) with after[start, end + growth).
+		int start = 0;
+		while (start < shortest && before[start] == after[start])
+			start++;
+		int end = previous.length;
+		while (end > start && end - previous.length + source.length > start &&
+				before[end - 1] == after[end - 1 - previous.length + source.length])
+			end--;
+		int growth = source.length - previous.length;
+
+		Compilation root = (Compilation)ASTCodec.decode(tree);
+		if (start == previous.length && growth == 0)
+			return root;
+
+		LineIndex lines = new LineIndex(before);
+		lines.append(before, 0, previous.length);
+		ClassBodyDecl member = null;
+		ClassDecl owner = null;
+		int memberOffset = -1;
+		Sequence types = root.types();
+		for (int i = 0; i < types.nchildren; i++) {
+			ClassDecl cd = (ClassDecl)types.children[i];
+			// Imported classes are positioned in their own files.
+			if (!cd.generateCode())
+				continue;
+			for (int j = 0; j < cd.body().nchildren; j++) {
+				AST a = cd.body().children[j];
+				if (!(a instanceof ConstructorDecl) && !(a instanceof MethodDecl && ((MethodDecl)a).block() != null))
+					continue;
+				int offset = lines.lineStart(a.line) + a.charBegin - 1;
+				if (offset < start && offset > memberOffset) {
+					member = (ClassBodyDecl)a;
+					owner = cd;
+					memberOffset = offset;
+				}
+			}
+		}
+		if (member == null)
+			return null;
+
+		CompilerContext context = new CompilerContext(options);
+		Errors errors = new Errors();
+		context.setSink(errors);
+		CompilerContext outer = context.bind();
+		try {
+			// Where the body was: from its '{' to its '}', and the token after it.
+			Scanner old = new Scanner(previous);
+			old.startAt(memberOffset);
+			int open = -1, close = -1, depth = 0;
+			java_cup.runtime.Symbol t = old.next_token();
+			while (open == -1) {
+				t = old.next_token();
+				if (t.sym == sym.LPAREN)
+					depth++;
+				else if (t.sym == sym.RPAREN)
+					depth--;
+				else if (t.sym == sym.LBRACE && depth == 0)
+					open = old.offset();
+				else if (t.sym == sym.EOF)
+					return null;
+			}
+			while (close == -1) {
+				t = old.next_token();
+				if (t.sym == sym.LBRACE)
+					depth++;
+				else if (t.sym == sym.RBRACE && depth-- == 0)
+					close = old.offset();
+				else if (t.sym == sym.EOF)
+					return null;
+			}
+			Token next = (Token)old.next_token().value;
+			int nextOffset = old.offset();
+			if (next == null || start <= open || end > close)
+				return null;
+
+			Scanner lexer = new Scanner(source);
+			lexer.startAt(open);
+			DescentParser p = new DescentParser(new parser(lexer));
+			ClassBodyDecl body;
+			if (member instanceof MethodDecl) {
+				((MethodDecl)member).children[4] = p.methodBody();
+				body = member;
+			} else
+				body = p.constructorBody((ConstructorDecl)member);
+			Token now = p.lookahead();
+			if (errors.found || now == null || lexer.offset() != nextOffset + growth)
+				return null;
+
+			// Move what comes after the body, and put in the new body.
+			IdentityHashMap<AST, AST> moved = new IdentityHashMap<AST, AST>();
+			moved.put(body, body);
+			for (int i = 0; i < types.nchildren; i++) {
+				ClassDecl cd = (ClassDecl)types.children[i];
+				if (cd.generateCode())
+					move(cd, moved, next.line, next.charBegin, now.line - next.line, now.charBegin - next.charBegin);
+			}
+			for (int j = 0; j < owner.body().nchildren; j++)
+				if (owner.body().children[j] == member)
+					owner.body().children[j] = body;
+			return root;
+		} catch (RuntimeException e) {
+			// A syntax error (a CompilerException), or one from the scanner.
+			return null;
+		} catch (java.io.IOException e) {
+			return null;
+		} finally {
+			CompilerContext.unbind(outer);
+		}
+	}
+
+	/** Moves the nodes in 'a' at or after (line, column) down 'lines' lines,
+	 * and those on 'line' 'columns' columns further. A node can be in the
+	 * tree more than once (the type of 'int a, b;'), but is only moved the
+	 * first time; the nodes in 'moved' are not moved. */
+	private static void move(AST a, IdentityHashMap<AST, AST> moved, int line, int column, int lines, int columns) {
+		if (a == null || moved.put(a, a) != null)
+			return;
+		if (a.line == line && a.charBegin >= column) {
+			a.line += lines;
+			a.charBegin += columns;
+		} else if (a.line > line)
+			a.line += lines;
+		for (int i = 0; i < a.nchildren; i++)
+			move(a.children[i], moved, line, column, lines, columns);
+	}
+}
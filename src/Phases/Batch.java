@@ -0,0 +1,128 @@
+package Phases;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.concurrent.*;
+
+import Utilities.CompilerContext;
+import Utilities.SourceFile;
+import Utilities.ThreadOutputStream;
+
+/** Compiles a batch of files at the same time (-j and @filelist). Every file
+ * is compiled in a context of its own on one of 'jobs' threads; the include
+ * files are parsed once for the whole batch and shared through the
+ * ImportCache.
+ *
+ * The output of each file is collected while it compiles and printed when
+ * all the files before it have been printed, so the output is the same no
+ * matter how many threads are used. At the end a line with the throughput is
+ * printed.
+ */
+public class Batch {
+	private int jobs;
+	private ArrayList<CompilerContext> files = new ArrayList<CompilerContext>();
+
+	public Batch(int jobs) {
+		this.jobs = jobs;
+	}
+
+	public void setJobs(int jobs) {
+		this.jobs = jobs;
+	}
+
+	/** Adds a file to the batch; context.fileName is the file to compile. */
+	public void add(CompilerContext context) {
+		files.add(context);
+	}
+
+	/** The outcome of compiling one file. */
+	private static class Result {
+		int status;
+		int lines;
+		byte[] output;
+	}
+
+	/**
+	 * Compiles all the files of the batch.
+	 *
+	 * @return the exit status: 0 if all the files compiled, otherwise the
+	 *         status of the first file that did not.
+	 */
+	public int run() {
+		ThreadOutputStream.install();
+		long start = System.currentTimeMillis();
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(jobs, files.size())));
+		ArrayList<Future<Result>> results = new ArrayList<Future<Result>>();
+		for (int i = 0; i < files.size(); i++) {
+			final CompilerContext context = files.get(i);
+			results.add(pool.submit(new Callable<Result>() {
+				public Result call() {
+					return compile(context);
+				}
+			}));
+		}
+		pool.shutdown();
+
+		int status = 0;
+		int failed = 0;
+		long lines = 0;
+		for (int i = 0; i < results.size(); i++) {
+			Result r;
+			try {
+				r = results.get(i).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return 1;
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+			System.out.write(r.output, 0, r.output.length);
+			System.out.flush();
+			lines += r.lines;
+			if (r.status != 0) {
+				failed++;
+				if (status == 0)
+					status = r.status;
+			}
+		}
+
+		long time = Math.max(1, System.currentTimeMillis() - start);
+		System.out.println("Compiled " + files.size() + " files (" + failed + " failed, " + lines + " lines) in " +
+				time + " ms on " + jobs + " threads: " +
+				(files.size() * 1000L / time) + " files/s, " + (lines * 1000L / time) + " lines/s.");
+		return status;
+	}
+
+	/** Compiles one file on the current thread, collecting what it prints. */
+	private static Result compile(CompilerContext context) {
+		Result r = new Result();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ThreadOutputStream.setTarget(out);
+		try {
+			SourceFile source = SourceFile.read(context.resolve(context.fileName));
+			for (int i = 0; i < source.length; i++)
+				if (source.text[i] == '\n')
+					r.lines++;
+			r.status = Compiler.compile(context, source);
+		} catch (FileNotFoundException e) {
+			System.out.println("File not found : \"" + context.fileName + "\"");
+			r.status = 1;
+		} catch (IOException e) {
+			System.out.println("An I/O error occured while reading " + context.fileName + " : " + e);
+			r.status = 1;
+		} catch (RuntimeException e) {
+			// A bug in the compiler must only fail this file.
+			e.printStackTrace();
+			r.status = 1;
+		} catch (StackOverflowError e) {
+			e.printStackTrace();
+			r.status = 1;
+		} finally {
+			System.out.flush();
+			System.err.flush();
+			ThreadOutputStream.setTarget(null);
+		}
+		r.output = out.toByteArray();
+		return r;
+	}
+}
@@ -0,0 +1,310 @@
+package Phases;
+
+import java.io.*;
+
+import Scanner.*;
+import Parser.*;
+import Utilities.CompilerContext;
+import Utilities.CompilerException;
+import Utilities.ImportCache;
+import Utilities.SourceFile;
+import Utilities.Stats;
+import Utilities.Symbols;
+
+/** Runs the compiler on a command line. This used to live in Espressoc.main; it
+ * was moved here so that the compile server (see Server/CompileServer.java) can
+ * run the exact same command line without starting a new JVM. All the state
+ * of a compilation lives in its CompilerContext, so nothing has to be reset
+ * between compilations.
+ */
+public class Compiler {
+	public static void usage() {
+		System.out.println("Usage: java Espressoc [-ref extension] [-I directory] [-L directory] [-EVM] [-Ttoken] [-Ttree] [-Tsymbol] [-Ttype] [-Tmodifier] [-Tcode] [-Tstats] [-cache directory | -nocache] [-compact] [-incremental] [-watch] [-j threads] -P:(1|2|3|4|5|6) input ... | @filelist");
+		System.out.println("       java Espressoc -server [-port number] [-workers number] [-queue number]");
+		System.out.println("       java Espressoc -lsp [-I directory] [-cache directory | -nocache] [-descent] [-P:(1|2|3|4|5)]");
+		System.out.println("       -history. Shows the version history.");
+		System.out.println("       -EVM\tGenerate code for the Espresso Virtual Machine (else code for Java is generated)");
+		System.out.println("       -ref extension\tSpecify the extension of the generated Jasmin files (default is 'j')");
+		System.out.println("       -I dir\tSet the include directory (Default is Include).");
+		System.out.println("       -Ttoken\tPrint the tokens generated by the scanner.");
+		System.out.println("       -Ttree\tPrint the parse tree.");
+		System.out.println("       -Tsymbol\tProduce detailed output from the name checker.");
+		System.out.println("       -Ttype\tProduce detailed output from the type checker");
+		System.out.println("       -Tmodifier\tProduce detailed output from the modifier checker");
+		System.out.println("       -Tcode\tProduce detailed output from the code generator.");
+		System.out.println("       -Tstats\tShow the time, memory and lookups of every pass, and write them next to the file (Foo.java gives Foo.java.stats.json).");
+		System.out.println("       -cache dir\tKeep the parsed include files (and the dependencies for -incremental) in dir between runs.");
+		System.out.println("       -nocache\tDo not keep the parsed include files between runs (the default).");
+		System.out.println("       -descent\tParse with the hand-written parser instead of the one generated by CUP.");
+		System.out.println("       -compact\tRight-size the parse tree after parsing, to use less memory on large files.");
+		System.out.println("       -incremental\tOnly check the classes that changed since the last compilation (needs -cache).");
+		System.out.println("       -watch\tKeep running and recompile (incrementally) the files when they change.");
+		System.out.println("       -j N\tCompile the files that follow on N threads at the same time (batch mode).");
+		System.out.println("       @filelist\tCompile the files listed in filelist, one per line (batch mode).");
+		System.out.println("       -P:X\tRun the all phases of the compiler from phase X and down.");
+		System.out.println("       -nocomment\tDoes not produce comments in the jasmin file.");
+		System.out.println("           \tX can be 1,2,3,4,5 or 6");
+		System.out.println("           \t1/2 : scan and parse. No real difference between 1 and 2 ");
+		System.out.println("           \t3 : like 2 plus the name checker.");
+		System.out.println("           \t4 : like 3 plus the type checker.");
+		System.out.println("           \t5 : like 4 plus the modifier checker.");
+		System.out.println("           \t6 : Run the full compiler (Including code generation).");
+		System.out.println("           \t7 : Run the optimizer.");
+		System.out.println("       -server\tRun as a compile server; 'espressoc' forwards to it (see Server/CompileServer.java).");
+		System.out.println("       -lsp\tRun as a language server for an editor, on standard in and out (see Server/LanguageServer.java).");
+	}
+
+	/**
+	 * Runs the compiler on the command line argv.
+	 *
+	 * @param argv   the command line, contains the options and filenames to run
+	 *               the compiler on.
+	 * @return the exit status: 0 if all the files compiled, 1 otherwise.
+	 */
+	public static int run(String argv[]) {
+		return run(argv, new CompilerContext());
+	}
+
+	/**
+	 * Runs the compiler on the command line argv. The options on the command
+	 * line are added to a copy of 'options', and every file is compiled in a
+	 * context of its own that starts out with the options seen so far.
+	 *
+	 * Once -j or an @filelist has been seen the rest of the files are not
+	 * compiled one by one but collected in a Batch, which compiles them all
+	 * at the end.
+	 *
+	 * @param argv    the command line.
+	 * @param options the options (working directory, sink, ...) to start from.
+	 * @return the exit status: 0 if all the files compiled, 1 otherwise.
+	 */
+	public static int run(String argv[], CompilerContext options) {
+		options = new CompilerContext(options);
+		if (options.importCache == null)
+			options.importCache = new ImportCache(null);
+		Batch batch = null;
+		Watch watch = null;
+		int jobs = Runtime.getRuntime().availableProcessors();
+		// Files are compiled as they are seen and watch.run() does not
+		// return, so -watch with -j or @filelist must be refused up front.
+		boolean watching = false, batching = false;
+		for (int i = 0; i < argv.length; i++) {
+			if (argv[i].equals("-watch"))
+				watching = true;
+			else if (argv[i].equals("-j") || argv[i].startsWith("@"))
+				batching = true;
+			if (argv[i].equals("-j") || argv[i].equals("-cache") || argv[i].equals("-ref") || argv[i].equals("-I"))
+				i++;
+		}
+		if (watching && batching) {
+			System.out.println("-watch cannot be used with -j or @filelist.");
+			return 1;
+		}
+		for (int i = 0; i < argv.length; i++) {
+			CompilerContext context;
+			SourceFile source;
+			try {
+				if ( argv[i].equals("-")) {
+					if (options.standardInput == null || batch != null) {
+						System.out.println("Reading from standard input is not supported here.");
+						return 1;
+					}
+					context = new CompilerContext(options);
+					source = SourceFile.read(new InputStreamReader(options.standardInput));
+				} else if (argv[i].equals("-j")) {
+					jobs = Integer.parseInt(argv[i+1]);
+					if (jobs < 1)
+						throw new NumberFormatException();
+					i++;
+					if (batch == null)
+						batch = new Batch(jobs);
+					else
+						batch.setJobs(jobs);
+					continue;
+				} else if (argv[i].startsWith("@")) {
+					if (batch == null)
+						batch = new Batch(jobs);
+					BufferedReader list = new BufferedReader(new FileReader(options.resolve(argv[i].substring(1))));
+					String line;
+					while ((line = list.readLine()) != null) {
+						line = line.trim();
+						if (line.length() == 0 || line.startsWith("#"))
+							continue;
+						CompilerContext file = new CompilerContext(options);
+						file.fileName = line;
+						batch.add(file);
+					}
+					list.close();
+					continue;
+				} else if (argv[i].equals("-cache")) {
+					options.importCache = new ImportCache(options.resolve(argv[i+1]));
+					i++;
+					continue;
+				} else if (argv[i].equals("-descent")) {
+					options.descentParser = true;
+					continue;
+				} else if (argv[i].equals("-compact")) {
+					options.compactTree = true;
+					continue;
+				} else if (argv[i].equals("-incremental")) {
+					options.incremental = true;
+					continue;
+				} else if (argv[i].equals("-watch")) {
+					if (options.standardInput == null) {
+						System.out.println("-watch is not supported here.");
+						return 1;
+					}
+					options.incremental = true;
+					options.keepParseTree = true;
+					watch = new Watch();
+					continue;
+				} else if (argv[i].equals("-nocache")) {
+					options.importCache = new ImportCache(null);
+					continue;
+				} else if (argv[i].matches("-P:\\d")) {
+					options.phase = Integer.parseInt(argv[i].substring(3,4));
+					continue;
+				} else if (argv[i].equals("-Tsymbol")) {
+					options.debugLevel |= 0x0004;
+					continue;
+				} else if (argv[i].equals("-Ttoken")) {
+					options.debugLevel |= 0x0001;
+					continue;
+				} else if (argv[i].equals("-Ttree")) {
+					options.debugLevel |= 0x0002;
+					continue;
+				} else if (argv[i].equals("-Ttype")) {
+					options.debugLevel |= 0x0008;
+					continue;
+				} else if (argv[i].equals("-Tcode")) {
+					options.debugLevel |= 0x0020;
+					continue;
+				} else if (argv[i].equals("-Tmodifier")) {
+					options.debugLevel |= 0x0010;
+					continue;
+				} else if (argv[i].equals("-Toptimize")) {
+					options.debugLevel |= 0x0040;
+					continue;
+				} else if (argv[i].equals("-Tstats")) {
+					options.debugLevel |= 0x0080;
+					continue;
+				} else if (argv[i].equals("-ref")) {
+					if (argv[i+1].charAt(0) == '.')
+						argv[i+1] = argv[i+1].substring(1, argv[i+1].length());
+					options.fileExt = 	"."+argv[i+1];
+					i++;
+					continue;
+				} else if (argv[i].equals("-I")) {
+					if (argv[i+1].charAt(argv[i+1].length()-1) == '/')
+						argv[i+1] = argv[i+1].substring(0, argv[i+1].length()-1);
+					options.includeDir = argv[i+1];
+					i++;
+					continue;
+				} else if (argv[i].equals("-EVM")) {
+					options.generateEVMCode = true; // Generate code for the Espresso Virtual Machine
+					continue;
+				} else if (argv[i].equals("-help")) {
+					usage();
+					return 1;
+				} else if (argv[i].equals("-history")) {
+					Utilities.Version.versionHistory();
+					return 1;
+				} else if (argv[i].equals("-version")) {
+					System.out.println("espressoc " + Utilities.Version.getVersion() + "\n" + Utilities.Version.changes[Utilities.Version.changes.length-2]);
+					return 1;
+				} else if (argv[i].equals("-nocomment")) {
+					options.writeCommentsInJasminFile = false;
+					continue;
+				} else if (batch != null) {
+					context = new CompilerContext(options);
+					context.fileName = argv[i];
+					batch.add(context);
+					continue;
+				} else {
+					context = new CompilerContext(options);
+					context.fileName = argv[i];
+					source = SourceFile.read(context.resolve(argv[i]));
+				}
+			}
+			catch (FileNotFoundException e) {
+				System.out.println("File not found : \""+(argv[i].startsWith("@") ? argv[i].substring(1) : argv[i])+"\"");
+				return 1;
+			}
+			catch (IOException e) {
+				System.out.println("An I/O error occured while reading " + argv[i] + " : " + e);
+				return 1;
+			}
+			catch (ArrayIndexOutOfBoundsException e) {
+				usage();
+				return 1;
+			}
+			catch (NumberFormatException e) {
+				usage();
+				return 1;
+			}
+
+			int status = compile(context, source);
+			if (watch != null)
+				watch.add(context, source, status);
+			else if (status != 0)
+				return status;
+		}
+		if (watch != null)
+			watch.run();
+		if (batch != null)
+			return batch.run();
+		return 0;
+	}
+
+	/**
+	 * Compiles one file. The context is bound to the current thread while the
+	 * phases run, so several files can be compiled at the same time on
+	 * different threads as long as each has a context of its own.
+	 *
+	 * @param context the options and (empty) state of this compilation.
+	 * @param source  the text of the file.
+	 * @return the exit status: 0 if the file compiled.
+	 */
+	public static int compile(CompilerContext context, SourceFile source) {
+		if ((context.debugLevel & 0x0080) == 0x0080)
+			context.stats = new Stats(context);
+		int status = 0;
+		Symbols.use();
+		CompilerContext previous = context.bind();
+		try {
+			// -Ttoken shows the tokens of the include files too, so they
+			// are parsed by the parser itself (see parser.getImportFile()).
+			// A tree made by Watch.java has its include files already.
+			if ((context.debugLevel & 0x0001) == 0 && context.root == null) {
+				Stats.Pass pass = Stats.begin(1, "ImportResolver");
+				ImportResolver.resolve(context, source);
+				Stats.end(pass);
+			}
+			parser p = new parser(new Scanner(source));
+			switch (context.phase) {
+			case 1: new Phase1().execute(p, context.debugLevel, 0x0001); break;
+				//<--
+			case 2: new Phase2().execute(p, context.debugLevel, 0x0003); break;
+			case 3: new Phase3().execute(p, context.debugLevel, 0x0007); break;
+			case 4: new Phase4().execute(p, context.debugLevel, 0x000F); break;
+			case 5: new Phase5().execute(p, context.debugLevel, 0x001F); break;
+			case 6: new Phase6().execute(p, context.debugLevel, 0x003F); break;
+			case 7: new Phase7().execute(p, context.debugLevel, 0x007F); break;
+				//-->
+			default: System.out.println("Phase " + context.phase + " does not exist.");
+			}
+			if (context.incremental && context.dependencies != null)
+				context.dependencies.write(context.dependencyFile());
+		} catch (CompilerException e) {
+			status = e.getStatus();
+		} finally {
+			CompilerContext.unbind(previous);
+			Symbols.release();
+		}
+		if (status == 0)
+			System.out.println("============= S = U = C = C = E = S = S =================");
+		if (context.stats != null)
+			context.stats.report(status);
+		return status;
+	}
+}
@@ -1,10 +1,11 @@
 package Phases;
 
 import AST.*;
-import Utilities.SymbolTable;
+import Utilities.CompilerContext;
 
 public abstract class Phase {
-    public static AST root;
-    public static SymbolTable classTable = new SymbolTable();
+    /** The compilation this phase is part of; it holds the parse tree
+     * (context.root) and the class table (context.classTable). */
+    protected CompilerContext context = CompilerContext.current();
     public abstract void execute(Object arg, int debuglevel, int runLevel) ;	
 }
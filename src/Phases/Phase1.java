@@ -1,26 +1,45 @@
 package Phases;
 
 import AST.*;
-import Scanner.*;
 import Parser.*;
+import Utilities.ASTCodec;
+import Utilities.Error;
+import Utilities.CompilerException;
+import Utilities.Stats;
 
 public class Phase1 extends Phase {
 
 	public void execute(Object arg, int debugLevel, int runLevel) {
 		if ((debugLevel & 0x0001) == 0x0001)
-			Scanner.debug = true; //((parser)arg).lexer.debug = true;
+			((parser)arg).lexer.debug = true;
 		try {
 			if ((runLevel & 0x0001) == 0x0001) {
-				java_cup.runtime.Symbol r = ((parser)arg).parse();
-				root = (AST)r.value;
+				// With -watch the tree may have been made from the last one
+				// already (see Watch.java).
+				if (context.root == null) {
+					Stats.Pass pass = Stats.begin(1, "Parser");
+					java_cup.runtime.Symbol r = ((parser)arg).parse();
+					context.root = (AST)r.value;
+					Stats.end(pass);
+					if (context.compactTree) {
+						pass = Stats.begin(1, "Compact");
+						context.root.compact();
+						Stats.end(pass);
+					}
+				}
+				if (context.keepParseTree) {
+					Stats.Pass pass = Stats.begin(1, "ASTCodec");
+					context.parseTree = ASTCodec.encode(context.root);
+					Stats.end(pass);
+				}
 			}
+		} catch (CompilerException e) {
+			throw e;
 		} catch (java.io.IOException e) {
-			System.out.println("An I/O error occured while scanning :");
-			System.out.println(e);
-			System.exit(1);
+			Error.fatal("An I/O error occured while scanning :\n" + e);
 		} catch (Exception e) {
 			e.printStackTrace();
-			System.exit(1);
+			Error.terminate(1);
 		}
 	}
-}
\ No newline at end of file
+}
@@ -5,10 +5,9 @@ import Utilities.*;
 import Parser.*;
 
 public class Phase2 extends Phase1 {
-    public static ClassDecl Objects_myDecl = null;
-
 	public void execute(Object arg, int debugLevel, int runLevel) {
 		super.execute(arg, debugLevel, runLevel);
+		context.checkCancelled();
 		if ((runLevel & 0x0002) == 0x0002) {
 			// Add a shared superclass named 'Object' to the parse tree
 			ClassDecl cd =  new ClassDecl(new Sequence(new Modifier(Modifier.Public)),
@@ -18,11 +17,11 @@ public class Phase2 extends Phase1 {
 					new Sequence(),
 					false);
 			cd.doNotGenerateCode();
-			Objects_myDecl = cd;
-			((Compilation)root).types().append(cd);
+			context.objectsDecl = cd;
+			((Compilation)context.root).types().append(cd);
 		}
 		if ((debugLevel & 0x0002) == 0x0002) {
-			((Compilation)root).visit(new PrintVisitor()); 
+			((Compilation)context.root).visit(new PrintVisitor()); 
 		}
 	}
 }
\ No newline at end of file
@@ -1,17 +1,34 @@
 package Phases;
 
+import java.util.HashMap;
+
 import AST.*;
 import NameChecker.*;
+import Utilities.ClassHierarchy;
+import Utilities.DependencyGraph;
+import Utilities.Stats;
 
 public class Phase3 extends Phase2 {
 	public void execute(Object arg, int debugLevel, int runLevel) {
 		boolean traceNameChecker = ((debugLevel & 0x0004) == 0x0004);
 		super.execute(arg, debugLevel, runLevel);
+		context.checkCancelled();
+
+		// With -incremental the source hashes must be taken before the name
+		// checker starts changing the tree.
+		DependencyGraph graph = null;
+		if (context.incremental && (runLevel & 0x0004) == 0x0004) {
+			Stats.Pass pass = Stats.begin(3, "DependencyGraph");
+			graph = hashSources(runLevel);
+			Stats.end(pass);
+		}
 
 		if (traceNameChecker) 
 			System.out.println("** Defining Classes, Members and Fields. **");
 		if ((runLevel & 0x0004) == 0x0004) {
-			((Compilation)root).visit(new ClassAndMemberFinder(Phase.classTable,traceNameChecker));
+			Stats.Pass pass = Stats.begin(3, "ClassAndMemberFinder");
+			((Compilation)context.root).visit(new ClassAndMemberFinder(context.classTable,traceNameChecker));
+			Stats.end(pass);
 		}
 		if (traceNameChecker) 
 			System.out.println("** Defining Classes, Members and Fields. ** DONE!");
@@ -21,12 +38,84 @@ public class Phase3 extends Phase2 {
 			System.out.println("** Resolving symbols and defining locals. **");
 		}
 		if ((runLevel & 0x0004) == 0x0004) {
-			((Compilation)root).visit(new MyDeclSet(Phase.classTable, traceNameChecker));   
-			((Compilation)root).visit(new NameChecker(Phase.classTable,traceNameChecker));
+			// Only the class headers are visited here; the name checker sets
+			// the rest of the class types and rewrites the names of fields
+			// in the same walk as it resolves the names. When tracing, all
+			// the class types are set here, so that the trace is the same as
+			// that of the separate walks.
+			Stats.Pass pass = Stats.begin(3, "MyDeclSet");
+			((Compilation)context.root).visit(new MyDeclSet(context.classTable, traceNameChecker, traceNameChecker));
+			// The hierarchy is complete now; number the classes in the order
+			// they were declared.
+			for (int i = 0; i < context.classTable.size(); i++)
+				ClassHierarchy.number((ClassDecl)context.classTable.entry(i));
+			Stats.end(pass);
+			pass = Stats.begin(3, "NameChecker");
+			NameChecker nameChecker = new NameChecker(context.classTable, traceNameChecker);
+			if (graph == null)
+				((Compilation)context.root).visit(nameChecker);
+			else
+				checkChangedClasses(graph, nameChecker, traceNameChecker);
+			Stats.end(pass);
+			Stats.scopes(pass, nameChecker.scopes());
 		}
 		if (traceNameChecker) {
 			System.out.println("** Resolving symbols and defining locals. ** DONE!");
 			System.out.println("Phase 3 successfully terminated.");
 		}
 	}
-}
\ No newline at end of file
+
+	/** A new dependency graph with the source hashes of all the classes. */
+	private DependencyGraph hashSources(int runLevel) {
+		DependencyGraph graph = new DependencyGraph();
+		// runLevel has a bit for every phase that is run.
+		graph.phase = Integer.toBinaryString(runLevel).length();
+		Sequence types = ((Compilation)context.root).types();
+		for (int i = 0; i < types.nchildren; i++) {
+			ClassDecl cd = (ClassDecl)types.children[i];
+			DependencyGraph.Node node = new DependencyGraph.Node();
+			node.sourceHash = DependencyGraph.sourceHash(cd);
+			graph.put(cd.name(), node);
+		}
+		return graph;
+	}
+
+	/** Runs the name checker on the classes that changed (or use a class that
+	 * changed) since the last successful compilation; no code is generated
+	 * for the others. */
+	private void checkChangedClasses(DependencyGraph graph, NameChecker nameChecker, boolean traceNameChecker) {
+		DependencyGraph previous = context.dependencies;
+		if (previous == null)
+			previous = DependencyGraph.read(context.dependencyFile());
+
+		Sequence types = ((Compilation)context.root).types();
+		HashMap<String, String> done = new HashMap<String, String>();
+		for (int i = 0; i < types.nchildren; i++) {
+			ClassDecl cd = (ClassDecl)types.children[i];
+			graph.get(cd.name()).signatureHash = DependencyGraph.signatureHash(cd, done);
+		}
+
+		DependencyFinder finder = new DependencyFinder(types);
+		for (int i = 0; i < types.nchildren; i++) {
+			ClassDecl cd = (ClassDecl)types.children[i];
+			DependencyGraph.Node node = graph.get(cd.name());
+			if (graph.isDirty(cd.name(), previous)) {
+				context.checkCancelled();
+				cd.visit(nameChecker);
+				node.dependencies = finder.find(cd);
+				graph.checked++;
+			} else {
+				if (traceNameChecker)
+					System.out.println("ClassDecl:\t Class '" + cd.name() + "' has not changed.");
+				node.dependencies = previous.get(cd.name()).dependencies;
+				cd.doNotGenerateCode();
+				// The classes that use it look at its signatures (when tracing
+				// they have all been set already).
+				if (!traceNameChecker)
+					cd.visit(new MyDeclSet(context.classTable, true, false));
+			}
+		}
+		graph.total = types.nchildren;
+		context.dependencies = graph;
+	}
+}
@@ -1,17 +1,21 @@
 package Phases;
 
 import TypeChecker.*;
+import Utilities.Stats;
 
 
 public class Phase4 extends Phase3 {
 	public void execute(Object arg, int debugLevel, int runLevel) {
 		boolean traceTypeChecker = ((debugLevel & 0x0008) == 0x0008);
 		super.execute(arg, debugLevel, runLevel);
+		context.checkCancelled();
 
 		if (traceTypeChecker)
 			System.out.println("** Checking types **");
 		if ((runLevel & 0x0008) == 0x0008) {
-			root.visit(new TypeChecker(classTable,traceTypeChecker));
+			Stats.Pass pass = Stats.begin(4, "TypeChecker");
+			context.root.visit(new TypeChecker(context.classTable,traceTypeChecker));
+			Stats.end(pass);
 		}
 		if (traceTypeChecker) {
 			System.out.println("** Checking types ** DONE!");
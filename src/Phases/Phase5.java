@@ -7,11 +7,14 @@ public class Phase5 extends Phase4 {
 	public void execute(Object arg, int debugLevel, int runLevel) {
 		boolean traceModifierChecker = ((debugLevel & 0x0010) == 0x0010);
 		super.execute(arg, debugLevel, runLevel);
+		context.checkCancelled();
 
 		if (traceModifierChecker)
 			System.out.println("** Checking Modifiers **");
 		if ((runLevel & 0x0010) == 0x0010) {
-		    root.visit(new ModifierChecker(classTable, traceModifierChecker));
+		    Stats.Pass pass = Stats.begin(5, "ModifierChecker");
+		    context.root.visit(new ModifierChecker(context.classTable, traceModifierChecker));
+		    Stats.end(pass);
 		}
 		if (traceModifierChecker) {
 			System.out.println("** Checking Modifiers ** DONE!");
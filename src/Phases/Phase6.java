@@ -2,18 +2,25 @@ package Phases;
 
 import AST.*;
 import CodeGenerator.*;
+import Utilities.Stats;
 
 public class Phase6 extends Phase5 {
 	public void execute(Object arg, int debugLevel, int runLevel) {
 
 		boolean traceCodeGenerator  = ((debugLevel & 0x00020) == 0x0020);
 		super.execute(arg, debugLevel, runLevel);
+		context.checkCancelled();
 		if ((runLevel & 0x0020) == 0x0020) {
 			// If we are not generating code for the EVM, so rename Object to /java/lang/Object etc.
-			if (!Utilities.Settings.generateEVMCode)
-				((Compilation)root).visit(new Java());
+			if (!context.generateEVMCode) {
+				Stats.Pass pass = Stats.begin(6, "Java");
+				((Compilation)context.root).visit(new Java());
+				Stats.end(pass);
+			}
 
-			new CodeGenerator().generate((Compilation)root, traceCodeGenerator);	
+			Stats.Pass pass = Stats.begin(6, "CodeGenerator");
+			new CodeGenerator().generate((Compilation)context.root, traceCodeGenerator);	
+			Stats.end(pass);
 			// generate( ) writes the files by calling WriteFiles.
 		}       	
 	}
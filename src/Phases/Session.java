@@ -0,0 +1,102 @@
+package Phases;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import Parser.Reparser;
+import Utilities.CompilerContext;
+import Utilities.DependencyGraph;
+import Utilities.SourceFile;
+import Utilities.Symbols;
+
+/** What is kept of the compilations of one file that is compiled over and
+ * over as it is edited (-watch, and the language server in
+ * Server/LanguageServer.java): the dependency graph of the last successful
+ * compilation, so that only the classes touched by a change are checked
+ * again, and the text and parse tree of the last parse, so that an edit
+ * inside the body of a method only has that body parsed again (see
+ * Parser/Reparser.java).
+ *
+ * The contexts the compilations run in must be incremental and keep their
+ * parse trees.
+ */
+public class Session {
+	/** The graph of the last successful compilation (null if there was none). */
+	private DependencyGraph dependencies;
+	/** The text of the file the last time it was parsed, the parse tree the
+	 * parser made of it (null if it was never parsed) and the include files
+	 * it imported. */
+	private SourceFile source;
+	private byte tree[];
+	private HashSet<String> imports;
+	/** The last modified time and length of the include files the last
+	 * compilation read, by file. */
+	private HashMap<File, Long> stamps = new HashMap<File, Long>();
+	/** True if the last compilation only parsed the body of one method. */
+	public boolean reparsed;
+
+	/**
+	 * Compiles the file again, now that its text is 'source'.
+	 *
+	 * @param context the options and (empty) state of this compilation.
+	 * @param source  the text of the file.
+	 * @return the exit status: 0 if the file compiled.
+	 */
+	public int compile(CompilerContext context, SourceFile source) {
+		context.dependencies = dependencies;
+		reparsed = false;
+		int status;
+		// The reparsed tree has symbols in it already, so the symbol table
+		// must not be emptied before it is compiled (see Utilities/Symbols.java).
+		Symbols.use();
+		try {
+			// -Ttoken shows all the tokens, so the file is scanned in full.
+			if (tree != null && (context.debugLevel & 0x0001) == 0 && !includesChanged()) {
+				context.root = Reparser.reparse(context, this.source, tree, source);
+				if (context.root != null) {
+					context.imports.addAll(imports);
+					reparsed = true;
+				}
+			}
+			status = Compiler.compile(context, source);
+		} finally {
+			Symbols.release();
+		}
+		compiled(context, source, status);
+		return status;
+	}
+
+	/** Keeps what the compilation of 'source' in context left behind. */
+	public void compiled(CompilerContext context, SourceFile source, int status) {
+		if (status == 0)
+			dependencies = context.dependencies;
+		if (context.parseTree != null) {
+			this.source = source;
+			tree = context.parseTree;
+			imports = new HashSet<String>(context.imports);
+		}
+		stamps.clear();
+		for (String name : context.imports) {
+			File f = context.resolve(context.includeDir + "/" + name + ".java");
+			stamps.put(f, stamp(f));
+		}
+	}
+
+	/** The graph of the last successful compilation (null if there was none). */
+	public DependencyGraph dependencies() {
+		return dependencies;
+	}
+
+	/** True if an include file the last compilation read has changed since. */
+	public boolean includesChanged() {
+		for (File f : stamps.keySet())
+			if (stamp(f) != stamps.get(f))
+				return true;
+		return false;
+	}
+
+	public static long stamp(File f) {
+		return f.lastModified() * 31 + f.length();
+	}
+}
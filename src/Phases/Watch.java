@@ -0,0 +1,85 @@
+package Phases;
+
+import java.io.*;
+import java.util.ArrayList;
+
+import Utilities.CompilerContext;
+import Utilities.SourceFile;
+
+/** Keeps compiling the files given on the command line (-watch). Every
+ * INTERVAL milliseconds the files, and the include files they imported, are
+ * looked at; when one of them has changed the file is compiled again. The
+ * compilations are incremental and the dependency graph and the parsed include
+ * files are kept in memory, so only the classes touched by the change are
+ * checked again. The parse tree is kept as well; when the change is inside
+ * the body of one method only that body is parsed again (see Session.java).
+ */
+public class Watch {
+	private static final int INTERVAL = 200;
+
+	/** One file that is being watched. */
+	private static class Watched {
+		CompilerContext options;
+		String fileName;
+		/** The last modified time and length of the file when it was last read. */
+		long stamp;
+		Session session = new Session();
+	}
+
+	private ArrayList<Watched> files = new ArrayList<Watched>();
+
+	/** Starts watching the file that was just compiled in context. */
+	public void add(CompilerContext context, SourceFile source, int status) {
+		if (context.fileName.equals(""))
+			return;
+		Watched w = new Watched();
+		w.options = new CompilerContext(context);
+		w.fileName = context.fileName;
+		w.stamp = Session.stamp(context.resolve(context.fileName));
+		w.session.compiled(context, source, status);
+		files.add(w);
+	}
+
+	/** Watches the files until the JVM is stopped. */
+	public void run() {
+		if (files.size() == 0)
+			return;
+		System.out.println("Watching " + files.size() + " file(s) for changes.");
+		while (true) {
+			try {
+				Thread.sleep(INTERVAL);
+			} catch (InterruptedException e) {
+				return;
+			}
+			for (int i = 0; i < files.size(); i++) {
+				Watched w = files.get(i);
+				if (Session.stamp(w.options.resolve(w.fileName)) != w.stamp || w.session.includesChanged())
+					recompile(w);
+			}
+		}
+	}
+
+	private void recompile(Watched w) {
+		CompilerContext context = new CompilerContext(w.options);
+		context.fileName = w.fileName;
+		long start = System.currentTimeMillis();
+		int status;
+		w.stamp = Session.stamp(context.resolve(w.fileName));
+		try {
+			status = w.session.compile(context, SourceFile.read(context.resolve(w.fileName)));
+		} catch (FileNotFoundException e) {
+			System.out.println("File not found : \"" + w.fileName + "\"");
+			status = 1;
+		} catch (IOException e) {
+			System.out.println("An I/O error occured while reading " + w.fileName + " : " + e);
+			status = 1;
+		}
+		String checked = "";
+		if (status == 0 && context.dependencies != null)
+			checked = " (" + context.dependencies.checked + " of " + context.dependencies.total + " classes checked)";
+		if (w.session.reparsed)
+			checked += " (one body parsed)";
+		System.out.println("Compiled " + w.fileName + " in " + (System.currentTimeMillis() - start) + " ms" + checked + ".");
+		System.out.flush();
+	}
+}
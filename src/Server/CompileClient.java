@@ -0,0 +1,113 @@
+package Server;
+
+import java.io.*;
+import java.net.*;
+
+/** The thin front end of the compile server. It sends its command line and
+ * working directory to a running CompileServer and prints what comes back.
+ * If no server is running it compiles in this JVM, just like 'java Espressoc'
+ * would, so the 'espressoc' script can always start this class.
+ *
+ * The server is found on the port given by the ESPRESSOC_PORT environment
+ * variable, or else on the port written in ~/.espressoc-server by the server;
+ * the token the server wants first (see Protocol.java) is always read from
+ * that file.
+ */
+public class CompileClient {
+
+	public static void main(String argv[]) throws Exception {
+		String server[] = readServerFile();
+		int port = findPort(server);
+		Socket s = null;
+		if (port > 0 && server != null) {
+			try {
+				s = new Socket(InetAddress.getByName("127.0.0.1"), port);
+			} catch (IOException e) {
+				s = null; // stale port file; the server is gone.
+			}
+		}
+		if (s == null) {
+			compileLocally(argv);
+			return;
+		}
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+		out.writeUTF(server[1]);
+		out.writeUTF(System.getProperty("user.dir"));
+		out.writeInt(argv.length);
+		for (int i = 0; i < argv.length; i++)
+			out.writeUTF(argv[i]);
+		out.flush();
+
+		DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+		byte buffer[] = new byte[8192];
+		int status = 1;
+		try {
+			while (true) {
+				int tag = in.readUnsignedByte();
+				if (tag == Protocol.OUTPUT) {
+					int length = in.readInt();
+					if (length > buffer.length)
+						buffer = new byte[length];
+					in.readFully(buffer, 0, length);
+					System.out.write(buffer, 0, length);
+				} else if (tag == Protocol.EXIT) {
+					status = in.readInt();
+					break;
+				} else
+					throw new IOException("unexpected reply from the compile server");
+			}
+		} catch (EOFException e) {
+			System.out.flush();
+			System.err.println("The compile server closed the connection.");
+			System.exit(1);
+		}
+		System.out.flush();
+		s.close();
+		if (status != 0)
+			System.exit(status);
+	}
+
+	/** Returns the port and the token in the file the server wrote, or
+	 * null if there is no (readable) such file. */
+	private static String[] readServerFile() {
+		try {
+			File f = Protocol.portFile();
+			if (!f.exists())
+				return null;
+			BufferedReader r = new BufferedReader(new FileReader(f));
+			String port = r.readLine();
+			String token = r.readLine();
+			r.close();
+			if (port == null || token == null)
+				return null;
+			return new String[] { port.trim(), token.trim() };
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/** Returns the port of the compile server, or 0 if there is none. */
+	private static int findPort(String server[]) {
+		try {
+			String env = System.getenv("ESPRESSOC_PORT");
+			if (env != null)
+				return Integer.parseInt(env.trim());
+			return server == null ? 0 : Integer.parseInt(server[0]);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/** No server is running: run the compiler right here. Espressoc lives in
+	 * the default package, so it is looked up by name. */
+	private static void compileLocally(String argv[]) throws Exception {
+		try {
+			Class.forName("Espressoc").getMethod("main", String[].class).invoke(null, (Object)argv);
+		} catch (java.lang.reflect.InvocationTargetException e) {
+			if (e.getCause() instanceof Exception)
+				throw (Exception)e.getCause();
+			throw (java.lang.Error)e.getCause();
+		}
+	}
+}
@@ -0,0 +1,205 @@
+package Server;
+
+import java.io.*;
+import java.net.*;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.*;
+
+import Phases.Compiler;
+import Utilities.CompilerContext;
+import Utilities.ImportCache;
+import Utilities.ThreadOutputStream;
+
+/** A long running compiler. Starting a JVM, loading the parser tables and
+ * parsing the include files is most of the time spent compiling a small
+ * Espresso program, so instead of starting 'java Espressoc' for every file the
+ * 'espressoc' script forwards its command line to this server (see
+ * CompileClient.java), which compiles it in a JVM that is already warm.
+ *
+ * Only clients that know the token in ~/.espressoc-server (see Protocol.java)
+ * are served.
+ *
+ * Requests are run on a fixed pool of workers. At most 'workers + queue'
+ * requests are accepted at any time; when that many are in the server the
+ * server stops accepting connections, and new clients wait in the connection
+ * backlog until a worker is done.
+ */
+public class CompileServer {
+	private int port;
+	private int workers;
+	private int queue;
+	private ServerSocket serverSocket;
+	private ExecutorService pool;
+	private Semaphore slots;
+	private PrintStream log;
+	/** What a client must send first (see Protocol.java). */
+	private String token;
+	/** Shared by all requests, so an include file is only parsed again when it changes. */
+	private ImportCache importCache = new ImportCache(null);
+
+	public CompileServer(int port, int workers, int queue) {
+		this.port = port;
+		this.workers = workers;
+		this.queue = queue;
+	}
+
+	public static void main(String argv[]) {
+		int port = Protocol.DEFAULT_PORT;
+		int workers = Runtime.getRuntime().availableProcessors();
+		int queue = 64;
+		try {
+			for (int i = 0; i < argv.length; i++) {
+				if (argv[i].equals("-server"))
+					continue;
+				else if (argv[i].equals("-port"))
+					port = Integer.parseInt(argv[++i]);
+				else if (argv[i].equals("-workers"))
+					workers = Integer.parseInt(argv[++i]);
+				else if (argv[i].equals("-queue"))
+					queue = Integer.parseInt(argv[++i]);
+				else {
+					Compiler.usage();
+					System.exit(1);
+				}
+			}
+		} catch (RuntimeException e) {
+			Compiler.usage();
+			System.exit(1);
+		}
+		if (workers < 1 || queue < 0) {
+			Compiler.usage();
+			System.exit(1);
+		}
+		try {
+			new CompileServer(port, workers, queue).serve();
+		} catch (IOException e) {
+			System.out.println("Compile server: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/** Accepts requests until the JVM is stopped. */
+	public void serve() throws IOException {
+		log = System.out;
+		serverSocket = new ServerSocket(port, queue + workers, InetAddress.getByName("127.0.0.1"));
+		// The semaphore is what bounds the number of waiting requests; the
+		// queue of the pool itself must never reject a request.
+		pool = Executors.newFixedThreadPool(workers);
+		slots = new Semaphore(workers + queue);
+
+		// Everything the compiler prints goes to the client of the current thread.
+		ThreadOutputStream.install();
+
+		byte random[] = new byte[32];
+		new SecureRandom().nextBytes(random);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < random.length; i++)
+			sb.append(String.format("%02x", random[i] & 0xff));
+		token = sb.toString();
+
+		// The file is made private before the token is written to it.
+		final File portFile = Protocol.portFile();
+		portFile.delete();
+		if (!portFile.createNewFile() ||
+				!portFile.setReadable(false, false) || !portFile.setWritable(false, false) ||
+				!portFile.setReadable(true, true) || !portFile.setWritable(true, true))
+			throw new IOException("Cannot make " + portFile.getPath() + " readable by its owner only.");
+		PrintWriter pw = new PrintWriter(new FileWriter(portFile));
+		pw.println(serverSocket.getLocalPort());
+		pw.println(token);
+		pw.close();
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				portFile.delete();
+			}
+		});
+
+		log.println("Compile server listening on port " + serverSocket.getLocalPort() +
+				" (" + workers + " workers, queue of " + queue + ").");
+		while (true) {
+			slots.acquireUninterruptibly();
+			Socket s;
+			try {
+				s = serverSocket.accept();
+			} catch (IOException e) {
+				slots.release();
+				log.println("Compile server: " + e.getMessage());
+				continue;
+			}
+			pool.execute(new Request(s));
+		}
+	}
+
+	/** One compilation asked for by one client. */
+	private class Request implements Runnable {
+		private Socket socket;
+
+		Request(Socket socket) {
+			this.socket = socket;
+		}
+
+		public void run() {
+			try {
+				DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				// A client that does not send its request in time does not
+				// get to keep a worker.
+				socket.setSoTimeout(10000);
+				if (!MessageDigest.isEqual(in.readUTF().getBytes("UTF-8"), token.getBytes("UTF-8"))) {
+					log.println("Compile server: refused a client with the wrong token.");
+					return;
+				}
+				Protocol.FrameOutputStream out = new Protocol.FrameOutputStream(
+						new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())));
+				File cwd = new File(in.readUTF());
+				String argv[] = new String[in.readInt()];
+				for (int i = 0; i < argv.length; i++)
+					argv[i] = in.readUTF();
+				socket.setSoTimeout(0);
+
+				int status = compile(cwd, argv, out);
+				System.out.flush();
+				out.exit(status);
+			} catch (IOException e) {
+				log.println("Compile server: lost client: " + e.getMessage());
+			} finally {
+				try {
+					socket.close();
+				} catch (IOException e) {
+				}
+				slots.release();
+			}
+		}
+	}
+
+	/** Runs the command line argv as if 'java Espressoc' had been started in
+	 * the directory cwd, sending everything the compiler prints to out.
+	 */
+	private int compile(File cwd, String argv[], OutputStream out) {
+		ThreadOutputStream.setTarget(out);
+		try {
+			if (argv.length == 0) {
+				System.out.println("Espresso Compiler version XX.YY");
+				Compiler.usage();
+				return 1;
+			}
+			// Every request has a context of its own, so requests run side by side.
+			CompilerContext options = new CompilerContext();
+			options.workingDirectory = cwd;
+			options.standardInput = null;
+			options.importCache = importCache;
+			return Compiler.run(argv, options);
+		} catch (RuntimeException e) {
+			// A bug in the compiler must not take the server down.
+			e.printStackTrace();
+			return 1;
+		} catch (StackOverflowError e) {
+			e.printStackTrace();
+			return 1;
+		} finally {
+			System.out.flush();
+			System.err.flush();
+			ThreadOutputStream.setTarget(null);
+		}
+	}
+}
@@ -0,0 +1,446 @@
+package Server;
+
+import java.io.*;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.*;
+
+import Phases.Compiler;
+import Phases.Session;
+import Utilities.CompilerContext;
+import Utilities.Diagnostic;
+import Utilities.DiagnosticSink;
+import Utilities.ImportCache;
+import Utilities.Json;
+import Utilities.SourceFile;
+import Utilities.ThreadOutputStream;
+
+/** A language server (the Language Server Protocol, JSON-RPC over standard in
+ * and out) that gives an editor the errors in the Espresso files it has open
+ * (-lsp). Every open document is compiled (up to the name checker, or -P:X)
+ * when it is opened and every time it is edited, and the errors are sent to
+ * the editor as diagnostics.
+ *
+ * A document keeps its parse tree and dependency graph between compilations
+ * (see Phases/Session.java), so an edit inside a method body only has that
+ * body parsed again, and only the classes the edit touched are checked again.
+ * The include files are shared by all documents through the ImportCache.
+ *
+ * A document is compiled on one of a pool of threads. An edit that comes in
+ * while the document is being compiled cancels that compilation (see
+ * CompilerContext.checkCancelled()); the diagnostics of a compilation that
+ * was cancelled, or of a text that has been edited since, are never sent.
+ * The messages of the compiler are collected through a DiagnosticSink;
+ * whatever else it prints is thrown away, as standard out is the connection
+ * to the editor.
+ */
+public class LanguageServer {
+	/** The diagnostics of documents that compile, and of documents that are
+	 * not open any longer. */
+	private static final List<Object> NONE = Collections.emptyList();
+
+	private CompilerContext options;
+	private InputStream in;
+	private OutputStream out;
+	private ExecutorService pool;
+	private HashMap<String, Document> documents = new HashMap<String, Document>();
+	private boolean shutdown = false;
+
+	/** An open document. */
+	private static class Document {
+		String uri;
+		String fileName;
+		/** The text as the editor has it, and the version the editor gave it. */
+		StringBuilder text = new StringBuilder();
+		long version;
+		/** The compilation of the latest text that is going on (or null). */
+		CompilerContext running;
+		Session session = new Session();
+	}
+
+	/** Everything a compilation prints is thrown away. */
+	private static final OutputStream NOWHERE = new OutputStream() {
+		public void write(int b) {
+		}
+
+		public void write(byte b[], int off, int len) {
+		}
+	};
+
+	public LanguageServer(CompilerContext options, InputStream in, OutputStream out) {
+		this.options = options;
+		this.in = in;
+		this.out = out;
+		pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "language-server");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	public static void main(String argv[]) {
+		CompilerContext options = new CompilerContext();
+		options.phase = 3;
+		options.importCache = new ImportCache(null);
+		try {
+			for (int i = 0; i < argv.length; i++) {
+				if (argv[i].equals("-lsp"))
+					continue;
+				else if (argv[i].equals("-I"))
+					options.includeDir = argv[++i];
+				else if (argv[i].matches("-P:\\d"))
+					options.phase = Integer.parseInt(argv[i].substring(3, 4));
+				else if (argv[i].equals("-descent"))
+					options.descentParser = true;
+				else if (argv[i].equals("-cache"))
+					options.importCache = new ImportCache(new File(argv[++i]));
+				else if (argv[i].equals("-nocache"))
+					options.importCache = new ImportCache(null);
+				else {
+					Compiler.usage();
+					System.exit(1);
+				}
+			}
+		} catch (RuntimeException e) {
+			Compiler.usage();
+			System.exit(1);
+		}
+		// Code is never written; phase 6 would write the class files.
+		options.phase = Math.max(1, Math.min(options.phase, 5));
+		options.incremental = true;
+		options.keepParseTree = true;
+		options.standardInput = null;
+
+		// The connection must not see anything the compiler prints: the
+		// compilations print nowhere, and anything else goes to standard
+		// error (which editors keep a log of).
+		OutputStream connection = new FileOutputStream(FileDescriptor.out);
+		System.setOut(System.err);
+		ThreadOutputStream.install();
+		try {
+			System.exit(new LanguageServer(options, new BufferedInputStream(System.in), connection).serve());
+		} catch (IOException e) {
+			System.exit(1);
+		}
+	}
+
+	/** Answers the editor until it says 'exit' or goes away; returns the exit
+	 * status (0 if it asked for a shutdown first). */
+	public int serve() throws IOException {
+		String message;
+		while ((message = read()) != null) {
+			Map<?, ?> m;
+			try {
+				m = (Map<?, ?>)Json.parse(message);
+			} catch (RuntimeException e) {
+				send(error(null, -32700, "Parse error."));
+				continue;
+			}
+			Object id = m.get("id");
+			String method = (String)m.get("method");
+			Map<?, ?> params = (Map<?, ?>)m.get("params");
+			if (method == null)
+				continue;
+			if (method.equals("exit"))
+				return shutdown ? 0 : 1;
+			try {
+				Object result = handle(method, params);
+				if (id != null) {
+					if (result == this)
+						send(error(id, -32601, "Method not found: " + method));
+					else {
+						Map<String, Object> reply = Json.object("jsonrpc", "2.0");
+						reply.put("id", id);
+						reply.put("result", result);
+						send(reply);
+					}
+				}
+			} catch (RuntimeException e) {
+				if (id != null)
+					send(error(id, -32602, "Invalid params: " + e));
+			}
+		}
+		return 1;
+	}
+
+	/** Handles one request or notification; returns the result of the
+	 * request, or the server itself if there is no such method. */
+	private Object handle(String method, Map<?, ?> params) {
+		if (method.equals("initialize")) {
+			Object root = params == null ? null : params.get("rootUri");
+			if (root instanceof String)
+				options.workingDirectory = file((String)root);
+			Map<String, Object> sync = Json.object("openClose", Boolean.TRUE);
+			sync.put("change", 2);	// incremental
+			Map<String, Object> result = Json.object("capabilities", Json.object("textDocumentSync", sync));
+			result.put("serverInfo", Json.object("name", "espressoc"));
+			return result;
+		} else if (method.equals("shutdown")) {
+			shutdown = true;
+			return null;
+		} else if (method.equals("textDocument/didOpen")) {
+			Map<?, ?> item = (Map<?, ?>)params.get("textDocument");
+			Document d = new Document();
+			d.uri = (String)item.get("uri");
+			d.fileName = file(d.uri).getPath();
+			d.text.append((String)item.get("text"));
+			d.version = ((Number)item.get("version")).longValue();
+			synchronized (documents) {
+				documents.put(d.uri, d);
+			}
+			compile(d);
+		} else if (method.equals("textDocument/didChange")) {
+			Map<?, ?> item = (Map<?, ?>)params.get("textDocument");
+			Document d;
+			synchronized (documents) {
+				d = documents.get(item.get("uri"));
+			}
+			if (d != null) {
+				synchronized (d) {
+					for (Object o : (List<?>)params.get("contentChanges"))
+						change(d.text, (Map<?, ?>)o);
+					d.version = ((Number)item.get("version")).longValue();
+				}
+				compile(d);
+			}
+		} else if (method.equals("textDocument/didClose")) {
+			Map<?, ?> item = (Map<?, ?>)params.get("textDocument");
+			Document d;
+			synchronized (documents) {
+				d = documents.remove(item.get("uri"));
+			}
+			if (d != null) {
+				synchronized (d) {
+					if (d.running != null)
+						d.running.cancelled = true;
+					d.running = null;
+				}
+				publish(d.uri, null, NONE);
+			}
+		} else if (method.startsWith("$/") || method.equals("initialized") || method.startsWith("textDocument/did"))
+			return null;
+		else
+			return this;
+		return null;
+	}
+
+	// ------------------------------------------------------------------------
+	// Compiling
+
+	/** Compiles the latest text of d, and stops compiling any older one. */
+	private void compile(final Document d) {
+		final CompilerContext context = new CompilerContext(options);
+		final SourceFile source;
+		final long version;
+		synchronized (d) {
+			if (d.running != null)
+				d.running.cancelled = true;
+			d.running = context;
+			context.fileName = d.fileName;
+			try {
+				source = SourceFile.read(new StringReader(d.text.toString()));
+			} catch (IOException e) {
+				return;
+			}
+			version = d.version;
+		}
+		final ArrayList<Object> diagnostics = new ArrayList<Object>();
+		context.setSink(new DiagnosticSink() {
+			public void report(Diagnostic diagnostic) {
+				diagnostics.add(diagnostic(source, diagnostic));
+			}
+		});
+		pool.execute(new Runnable() {
+			public void run() {
+				ThreadOutputStream.setTarget(NOWHERE);
+				// One compilation of a document at a time; the session holds
+				// what the last one left behind.
+				synchronized (d.session) {
+					if (context.cancelled)
+						return;
+					try {
+						d.session.compile(context, source);
+					} catch (RuntimeException e) {
+						// A bug in the compiler must not take the server down.
+						diagnostics.add(diagnostic(source, new Diagnostic(null, -1, "The compiler failed: " + e)));
+					} catch (StackOverflowError e) {
+						diagnostics.add(diagnostic(source, new Diagnostic(null, -1, "The compiler failed: " + e)));
+					}
+				}
+				synchronized (d) {
+					if (context.cancelled || d.running != context)
+						return;
+					d.running = null;
+				}
+				publish(d.uri, version, diagnostics);
+			}
+		});
+	}
+
+	/** A compiler message as an LSP diagnostic; it covers the line it is
+	 * about (the first line if it is not about one). The line of a message
+	 * about an include file is not a line of the document, so such a
+	 * message covers the import declaration of the file instead (the first
+	 * line if it is imported by another include file) and says where the
+	 * error is. */
+	private static Map<String, Object> diagnostic(SourceFile source, Diagnostic d) {
+		int line = Math.max(d.line - 1, 0);
+		String message = d.message;
+		if (d.include != null) {
+			line = importLine(source, d.include);
+			message = d.include + (d.line < 0 ? "" : ":" + d.line) + ": " + d.message;
+		}
+		int start = 0, l = 0;
+		while (l < line && start < source.length) {
+			if (source.text[start] == '\n')
+				l++;
+			start++;
+		}
+		int end = start;
+		while (end < source.length && source.text[end] != '\n' && source.text[end] != '\r')
+			end++;
+		Map<String, Object> range = Json.object("start", position(line, 0));
+		range.put("end", position(line, end - start));
+		Map<String, Object> diagnostic = Json.object("range", range);
+		diagnostic.put("severity", 1);	// error
+		diagnostic.put("source", "espressoc");
+		diagnostic.put("message", message);
+		return diagnostic;
+	}
+
+	/** The line (from 0) of the declaration that imports the include file
+	 * 'fileName', or 0 if the document has none. */
+	private static int importLine(SourceFile source, String fileName) {
+		String name = new File(fileName).getName();
+		if (name.endsWith(".java"))
+			name = name.substring(0, name.length() - 5);
+		int start = 0;
+		for (int line = 0; start < source.length; line++) {
+			int end = start;
+			while (end < source.length && source.text[end] != '\n')
+				end++;
+			String text = new String(source.text, start, end - start).trim();
+			if (text.startsWith("import") && text.length() > 6 && Character.isWhitespace(text.charAt(6))
+					&& text.substring(6).replaceAll("\\s", "").equals(name + ";"))
+				return line;
+			start = end + 1;
+		}
+		return 0;
+	}
+
+	private static Map<String, Object> position(int line, int character) {
+		Map<String, Object> position = Json.object("line", line);
+		position.put("character", character);
+		return position;
+	}
+
+	private void publish(String uri, Object version, List<Object> diagnostics) {
+		Map<String, Object> params = Json.object("uri", uri);
+		if (version != null)
+			params.put("version", version);
+		params.put("diagnostics", diagnostics);
+		Map<String, Object> notification = Json.object("jsonrpc", "2.0");
+		notification.put("method", "textDocument/publishDiagnostics");
+		notification.put("params", params);
+		try {
+			send(notification);
+		} catch (IOException e) {
+			// The editor has gone; serve() finds out.
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	// Documents
+
+	private static File file(String uri) {
+		try {
+			return new File(new URI(uri));
+		} catch (Exception e) {
+			return new File(uri);
+		}
+	}
+
+	/** Applies one change the editor sent: the new text of the range (line
+	 * and character, counted in UTF-16 units like Java chars are), or of the
+	 * whole document if there is no range. */
+	private static void change(StringBuilder text, Map<?, ?> change) {
+		Map<?, ?> range = (Map<?, ?>)change.get("range");
+		String replacement = (String)change.get("text");
+		if (range == null) {
+			text.setLength(0);
+			text.append(replacement);
+			return;
+		}
+		int start = offset(text, (Map<?, ?>)range.get("start"));
+		int end = offset(text, (Map<?, ?>)range.get("end"));
+		text.replace(start, Math.max(start, end), replacement);
+	}
+
+	private static int offset(StringBuilder text, Map<?, ?> position) {
+		int line = ((Number)position.get("line")).intValue();
+		int character = ((Number)position.get("character")).intValue();
+		int offset = 0;
+		for (int l = 0; l < line && offset < text.length(); offset++)
+			if (text.charAt(offset) == '\n')
+				l++;
+		return Math.min(offset + character, text.length());
+	}
+
+	// ------------------------------------------------------------------------
+	// Messages: a Content-Length header, an empty line and the JSON text.
+
+	/** The next message, or null at the end of the input. */
+	private String read() throws IOException {
+		int length = -1;
+		StringBuilder line = new StringBuilder();
+		while (true) {
+			int c = in.read();
+			if (c == -1)
+				return null;
+			if (c == '\r')
+				continue;
+			if (c != '\n') {
+				line.append((char)c);
+				continue;
+			}
+			if (line.length() == 0) {
+				if (length >= 0)
+					break;
+				continue;
+			}
+			String header = line.toString();
+			if (header.toLowerCase().startsWith("content-length:"))
+				length = Integer.parseInt(header.substring(15).trim());
+			line.setLength(0);
+		}
+		byte body[] = new byte[length];
+		int n = 0;
+		while (n < length) {
+			int r = in.read(body, n, length - n);
+			if (r == -1)
+				return null;
+			n += r;
+		}
+		return new String(body, "UTF-8");
+	}
+
+	private void send(Map<String, Object> message) throws IOException {
+		byte body[] = Json.write(message).getBytes("UTF-8");
+		synchronized (out) {
+			out.write(("Content-Length: " + body.length + "\r\n\r\n").getBytes("US-ASCII"));
+			out.write(body);
+			out.flush();
+		}
+	}
+
+	private static Map<String, Object> error(Object id, int code, String message) {
+		Map<String, Object> error = Json.object("code", code);
+		error.put("message", message);
+		Map<String, Object> reply = Json.object("jsonrpc", "2.0");
+		reply.put("id", id);
+		reply.put("error", error);
+		return reply;
+	}
+}
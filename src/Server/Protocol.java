@@ -0,0 +1,61 @@
+package Server;
+
+import java.io.*;
+
+/** The wire format between CompileClient and CompileServer.
+ *
+ * A request is the token of the server, the client's working directory and
+ * the command line:
+ *   UTF(token) UTF(working directory) INT(number of arguments) UTF(argument)*
+ * The server writes its port and a random token to ~/.espressoc-server,
+ * which only its owner can read, and closes every connection that does not
+ * start with the token; so only the user who started the server can make it
+ * compile (and read and write files with the rights of that user).
+ * The reply is a number of frames, each starting with a tag byte:
+ *   OUTPUT INT(length) BYTE*   -- output the compiler printed
+ *   EXIT   INT(status)         -- always the last frame
+ */
+public class Protocol {
+	public static final int OUTPUT = 'O';
+	public static final int EXIT   = 'X';
+
+	/** The port the server listens on if nothing else is said. */
+	public static final int DEFAULT_PORT = 4646;
+
+	/** The file the server writes its port number and token to, one per
+	 * line, so the client can find it. */
+	public static File portFile() {
+		return new File(System.getProperty("user.home"), ".espressoc-server");
+	}
+
+	/** An output stream which wraps everything written to it in OUTPUT frames. */
+	public static class FrameOutputStream extends OutputStream {
+		private DataOutputStream out;
+
+		public FrameOutputStream(DataOutputStream out) {
+			this.out = out;
+		}
+
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte)b }, 0, 1);
+		}
+
+		public synchronized void write(byte[] b, int off, int len) throws IOException {
+			if (len == 0)
+				return;
+			out.writeByte(OUTPUT);
+			out.writeInt(len);
+			out.write(b, off, len);
+		}
+
+		public synchronized void flush() throws IOException {
+			out.flush();
+		}
+
+		public synchronized void exit(int status) throws IOException {
+			out.writeByte(EXIT);
+			out.writeInt(status);
+			out.flush();
+		}
+	}
+}
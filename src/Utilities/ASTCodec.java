@@ -0,0 +1,273 @@
+package Utilities;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import AST.AST;
+import AST.Modifiers;
+
+/** Turns a parse tree into bytes and back (see ImportCache.java). This is a
+ * lot faster than parsing the file again, and a lot faster (and smaller)
+ * than java.io serialization, because it only has to deal with what a parse
+ * tree is made of: the fields of the nodes (ints, booleans, Strings, other
+ * nodes, arrays of nodes) and the symbol tables hanging off ClassDecls.
+ * Transient fields (such as symbols, see Symbols.java) are not written, and
+ * are 0 or null in the copy.
+ *
+ * The fields of every class are written in a fixed order; the first time a
+ * class is used its name and a hash of its fields are written, so that
+ * bytes written by a compiler whose classes look different are refused
+ * instead of being read into the wrong fields. Only the classes a parse
+ * tree is made of are written or read back: the nodes of package AST (and
+ * Modifiers), arrays of nodes, SymbolTable and Hashtable; a name of any
+ * other class in the bytes is refused before the class is loaded. Nodes are
+ * recreated with the constructor without parameters every node class has
+ * for this (see AST.java), and then get their fields set. A node that is
+ * referenced twice is written once and read back as one node.
+ */
+public class ASTCodec {
+	// What comes in front of a value.
+	private static final int NULL = -1;
+	private static final int STRING = -2;
+	private static final int NEW_CLASS = -3;
+	private static final int HANDLE = -4;
+
+	/** The fields to write for each class. */
+	private static final ConcurrentHashMap<Class<?>, Field[]> fields = new ConcurrentHashMap<Class<?>, Field[]>();
+	/** The constructors used to recreate the objects of each class. */
+	private static final ConcurrentHashMap<Class<?>, Constructor<?>> constructors = new ConcurrentHashMap<Class<?>, Constructor<?>>();
+
+	private DataOutputStream out;
+	private DataInputStream in;
+	private ArrayList<Class<?>> classes = new ArrayList<Class<?>>();
+	private HashMap<Class<?>, Integer> classIds = new HashMap<Class<?>, Integer>();
+	private ArrayList<Object> objects = new ArrayList<Object>();
+	private IdentityHashMap<Object, Integer> handles = new IdentityHashMap<Object, Integer>();
+	/** False if the line and column of every node are written as 0. */
+	private boolean positions = true;
+
+	private ASTCodec() {
+	}
+
+	/** The bytes that decode() turns back into a copy of o. */
+	public static byte[] encode(Object o) {
+		return encode(o, true);
+	}
+
+	/** Like encode(), but with the line and column of every node written as
+	 * 0, so that the bytes of a tree do not change when the tree only moved
+	 * in its file (see DependencyGraph.sourceHash()). Not for decode(). */
+	public static byte[] encodeWithoutPositions(Object o) {
+		return encode(o, false);
+	}
+
+	private static byte[] encode(Object o, boolean positions) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			ASTCodec codec = new ASTCodec();
+			codec.positions = positions;
+			codec.out = new DataOutputStream(bytes);
+			codec.write(o);
+			codec.out.close();
+			return bytes.toByteArray();
+		} catch (Exception e) {
+			throw new RuntimeException("Cannot store the parse tree: " + e);
+		}
+	}
+
+	/** A new copy of the object encode() was given. */
+	public static Object decode(byte image[]) {
+		try {
+			ASTCodec codec = new ASTCodec();
+			codec.in = new DataInputStream(new ByteArrayInputStream(image));
+			return codec.read();
+		} catch (Exception e) {
+			throw new RuntimeException("Cannot restore the parse tree: " + e);
+		}
+	}
+
+	private void write(Object o) throws Exception {
+		if (o == null) {
+			out.writeShort(NULL);
+			return;
+		}
+		Class<?> c = o.getClass();
+		if (c == String.class) {
+			out.writeShort(STRING);
+			out.writeUTF((String)o);
+			return;
+		}
+		Integer handle = handles.get(o);
+		if (handle != null) {
+			out.writeShort(HANDLE);
+			out.writeInt(handle);
+			return;
+		}
+		handles.put(o, handles.size());
+
+		Integer id = classIds.get(c);
+		if (id == null) {
+			if (treeClass(c.getName()) != c)
+				throw new IOException("A parse tree cannot hold a " + c.getName());
+			classIds.put(c, classes.size());
+			classes.add(c);
+			out.writeShort(NEW_CLASS);
+			out.writeUTF(c.getName());
+			out.writeInt(layout(c));
+		} else
+			out.writeShort(id);
+
+		if (c.isArray()) {
+			Object a[] = (Object[])o;
+			out.writeInt(a.length);
+			for (int i = 0; i < a.length; i++)
+				write(a[i]);
+		} else if (c == Hashtable.class) {
+			Hashtable<?,?> h = (Hashtable<?,?>)o;
+			out.writeInt(h.size());
+			for (Map.Entry<?,?> e : h.entrySet()) {
+				write(e.getKey());
+				write(e.getValue());
+			}
+		} else {
+			Field f[] = fieldsOf(c);
+			for (int i = 0; i < f.length; i++) {
+				Class<?> t = f[i].getType();
+				if (t == int.class)
+					out.writeInt(positions || !isPosition(f[i]) ? f[i].getInt(o) : 0);
+				else if (t == boolean.class)
+					out.writeBoolean(f[i].getBoolean(o));
+				else if (t.isPrimitive())
+					throw new IOException("Field of type " + t + " in " + c.getName());
+				else
+					write(f[i].get(o));
+			}
+		}
+	}
+
+	private Object read() throws Exception {
+		int id = in.readShort();
+		if (id == NULL)
+			return null;
+		if (id == STRING)
+			return in.readUTF();
+		if (id == HANDLE)
+			return objects.get(in.readInt());
+
+		Class<?> c;
+		if (id == NEW_CLASS) {
+			c = treeClass(in.readUTF());
+			if (in.readInt() != layout(c))
+				throw new IOException("The class " + c.getName() + " has changed");
+			classes.add(c);
+		} else
+			c = classes.get(id);
+
+		if (c.isArray()) {
+			Object a[] = (Object[])Array.newInstance(c.getComponentType(), in.readInt());
+			objects.add(a);
+			for (int i = 0; i < a.length; i++)
+				a[i] = read();
+			return a;
+		} else if (c == Hashtable.class) {
+			Hashtable<Object,Object> h = new Hashtable<Object,Object>();
+			objects.add(h);
+			int n = in.readInt();
+			for (int i = 0; i < n; i++)
+				h.put(read(), read());
+			return h;
+		}
+		Object o = newInstance(c);
+		objects.add(o);
+		Field f[] = fieldsOf(c);
+		for (int i = 0; i < f.length; i++) {
+			Class<?> t = f[i].getType();
+			if (t == int.class)
+				f[i].setInt(o, in.readInt());
+			else if (t == boolean.class)
+				f[i].setBoolean(o, in.readBoolean());
+			else
+				f[i].set(o, read());
+		}
+		return o;
+	}
+
+	/** The fields of c and its superclasses, superclass first; static and
+	 * transient fields are left out. */
+	private static Field[] fieldsOf(Class<?> c) {
+		Field f[] = fields.get(c);
+		if (f == null) {
+			ArrayList<Field> list = new ArrayList<Field>();
+			if (c.getSuperclass() != Object.class)
+				list.addAll(Arrays.asList(fieldsOf(c.getSuperclass())));
+			Field declared[] = c.getDeclaredFields();
+			Arrays.sort(declared, new Comparator<Field>() {
+				public int compare(Field a, Field b) {
+					return a.getName().compareTo(b.getName());
+				}
+			});
+			for (int i = 0; i < declared.length; i++) {
+				if (Modifier.isStatic(declared[i].getModifiers()) || Modifier.isTransient(declared[i].getModifiers()))
+					continue;
+				declared[i].setAccessible(true);
+				list.add(declared[i]);
+			}
+			f = list.toArray(new Field[list.size()]);
+			fields.put(c, f);
+		}
+		return f;
+	}
+
+	/** True for AST.line and AST.charBegin. */
+	private static boolean isPosition(Field f) {
+		return f.getDeclaringClass() == AST.class && (f.getName().equals("line") || f.getName().equals("charBegin"));
+	}
+
+	/** A hash of the names and types of the fields of c. */
+	private static int layout(Class<?> c) {
+		if (c.isArray() || c == Hashtable.class)
+			return 0;
+		Field f[] = fieldsOf(c);
+		int h = f.length;
+		for (int i = 0; i < f.length; i++)
+			h = 31 * h + (f[i].getName() + ":" + f[i].getType().getName()).hashCode();
+		return h;
+	}
+
+	/** The class of the given name if a parse tree can be made of it (see
+	 * above); the classes of package AST are looked up without being
+	 * initialized, and no other class is looked up at all. */
+	private static Class<?> treeClass(String name) throws IOException {
+		if (name.equals(SymbolTable.class.getName()))
+			return SymbolTable.class;
+		if (name.equals(Hashtable.class.getName()))
+			return Hashtable.class;
+		boolean array = name.startsWith("[L") && name.endsWith(";");
+		String element = array ? name.substring(2, name.length() - 1) : name;
+		if (element.startsWith("AST.") && element.indexOf('.', 4) < 0) {
+			try {
+				Class<?> c = Class.forName(element, false, ASTCodec.class.getClassLoader());
+				if (AST.class.isAssignableFrom(c))
+					return array ? Array.newInstance(c, 0).getClass() : c;
+				if (c == Modifiers.class && !array)
+					return c;
+			} catch (ClassNotFoundException e) {
+			}
+		}
+		throw new IOException("A parse tree cannot hold a " + name);
+	}
+
+	/** A new object of class c, made with its constructor without
+	 * parameters; its fields are set by the caller. */
+	private static Object newInstance(Class<?> c) throws Exception {
+		Constructor<?> k = constructors.get(c);
+		if (k == null) {
+			k = c.getDeclaredConstructor();
+			k.setAccessible(true);
+			constructors.put(c, k);
+		}
+		return k.newInstance();
+	}
+}
@@ -0,0 +1,79 @@
+package Utilities;
+
+import java.util.BitSet;
+
+import AST.*;
+
+/** Answers 'is this class a superclass (or interface) of that class' in
+ * constant time. Every class of a compilation is given a small number, its
+ * type id, and two things are computed from its superclass and interfaces:
+ *
+ *   the display           - the classes on the way from Object down to the
+ *                           class, following the superclasses only; a class
+ *                           C is a superclass of D if C is at index
+ *                           depth(C) of the display of D (Cohen, 1991).
+ *   the interface closure - a set of the type ids of all the interfaces
+ *                           the class implements, directly or through its
+ *                           superclasses and interfaces (and of itself if it
+ *                           is an interface).
+ *
+ * The displays and closures of the superclass and the interfaces are made
+ * first, so every class is looked at once no matter how many ways it can be
+ * reached; walking the hierarchy instead can take exponential time when
+ * interfaces inherit from each other in diamonds.
+ *
+ * Everything is made when it is first needed, which must be after the name
+ * checker has set the myDecls of the superclasses and interfaces (see
+ * NameChecker/MyDeclSet.java). The type ids are handed out by the
+ * compilation (CompilerContext.typeIds), so they are dense.
+ */
+public class ClassHierarchy {
+
+	/** True if sup is sub, or a superclass or interface of sub. */
+	public static boolean isSuper(ClassDecl sup, ClassDecl sub) {
+		if (sup == sub)
+			return true;
+		number(sup);
+		number(sub);
+		if (sup.isInterface())
+			return sub.interfaceClosure.get(sup.typeId);
+		int depth = sup.display.length - 1;
+		return (depth < sub.display.length && sub.display[depth] == sup) ||
+			sub.interfaceClosure.get(sup.typeId);
+	}
+
+	/** Gives cd (and its superclass and interfaces) a type id, a display
+	 * and an interface closure, if it does not have them yet. */
+	public static void number(ClassDecl cd) {
+		if (cd.typeId != 0)
+			return;
+		// The id is set first, so a class that (wrongly) inherits from itself
+		// does not loop forever; the name checker complains about it.
+		cd.typeId = ++CompilerContext.current().typeIds;
+
+		ClassDecl sup = cd.superClass() == null ? null : cd.superClass().myDecl;
+		if (sup != null)
+			number(sup);
+		if (sup == null || sup.display == null) {
+			cd.display = new ClassDecl[] { cd };
+			cd.interfaceClosure = new BitSet();
+		} else {
+			cd.display = new ClassDecl[sup.display.length + 1];
+			System.arraycopy(sup.display, 0, cd.display, 0, sup.display.length);
+			cd.display[sup.display.length] = cd;
+			cd.interfaceClosure = (BitSet)sup.interfaceClosure.clone();
+		}
+		if (cd.isInterface())
+			cd.interfaceClosure.set(cd.typeId);
+
+		for (int i = 0; i < cd.interfaces().nchildren; i++) {
+			ClassDecl id = ((ClassType)cd.interfaces().children[i]).myDecl;
+			if (id == null)
+				continue;
+			number(id);
+			cd.interfaceClosure.set(id.typeId);
+			if (id.interfaceClosure != null)
+				cd.interfaceClosure.or(id.interfaceClosure);
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package Utilities;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.HashSet;
+
+import AST.*;
+
+/** Holds everything that belongs to one compilation: the options it was
+ * started with, the parse tree, the class table, the files imported so far
+ * and where the diagnostics go. Nothing about a compilation is kept in static
+ * fields, so any number of compilations can run one after the other or at the
+ * same time in one JVM, each with its own context.
+ *
+ * While a compilation runs its context is bound to the thread running it (see
+ * bind()), which is how code deep down in the compiler, like Error.error(),
+ * finds it.
+ */
+public class CompilerContext {
+	private static final ThreadLocal<CompilerContext> current = new ThreadLocal<CompilerContext>();
+	/** Used by code that runs outside of any compilation. */
+	private static final CompilerContext none = new CompilerContext();
+
+	// ------------------------------------------------------------------------
+	// Options (the defaults are in Settings.java)
+
+	/** Run all the phases up to and including this one (-P:X). */
+	public int phase = 0;
+	/** The -T flags: 0x01 tokens, 0x02 tree, 0x04 symbol, 0x08 type, 0x10 modifier, 0x20 code, 0x40 optimize */
+	public int debugLevel = 0;
+	public String includeDir = Settings.includeDir;
+	public boolean generateEVMCode = Settings.generateEVMCode;
+	public String fileExt = Settings.fileExt;
+	public boolean writeCommentsInJasminFile = Settings.writeCommentsInJasminFile;
+	/** Relative file names are resolved against this directory; null is the
+	 * working directory of the JVM. */
+	public File workingDirectory = null;
+	/** What '-' on the command line reads; null if there is nothing to read. */
+	public InputStream standardInput = System.in;
+	/** Only check the classes that changed since the last compilation (see
+	 * DependencyGraph.java). */
+	public boolean incremental = false;
+	/** Include files already parsed by this or other compilations; null when
+	 * every compilation parses its own. */
+	public ImportCache importCache = null;
+	/** Parse with Parser/DescentParser.java instead of the CUP tables (-descent). */
+	public boolean descentParser = false;
+	/** Set (from any thread) to stop the compilation at the next phase or
+	 * class; see checkCancelled(). */
+	public volatile boolean cancelled = false;
+	/** Keep the parse tree as the parser made it in parseTree (-watch). */
+	public boolean keepParseTree = false;
+	/** Right-size the child arrays of the parse tree once it is made
+	 * (-compact, see AST.compact()). */
+	public boolean compactTree = false;
+
+	// ------------------------------------------------------------------------
+	// State of the compilation
+
+	/** The file being compiled; used in error messages. */
+	public String fileName = "";
+	/** The include file being parsed or checked, if any (see
+	 * AST/ClassDecl.java); the errors found are about that file. */
+	public String include;
+	/** The parse tree (set by Phase 1, unless it was given one; see
+	 * Parser/Reparser.java). */
+	public AST root;
+	/** With keepParseTree: the parse tree before the later phases changed
+	 * it, as ASTCodec.encode() writes it. */
+	public byte parseTree[];
+	/** All classes of the program and its imports (filled by the name checker). */
+	public SymbolTable classTable = new SymbolTable();
+	/** The shared superclass 'Object' (see Phase2.java). */
+	public ClassDecl objectsDecl;
+	/** The names of the files imported so far; a file is only imported once. */
+	public HashSet<String> imports = new HashSet<String>();
+	/** The number of classes that have been given a type id (see ClassHierarchy.java). */
+	public int typeIds = 0;
+	/** The canonical class and array types of the compilation. */
+	public TypeFactory types = new TypeFactory();
+
+	/** With -incremental: the dependency graph of the last successful
+	 * compilation of the file (null to read it from dependencyFile()) until
+	 * Phase 3 replaces it with the graph of this compilation. */
+	public DependencyGraph dependencies;
+	/** With -Tstats: what the passes of this compilation spent (see
+	 * Stats.java); null otherwise. */
+	public Stats stats;
+
+	private DiagnosticSink sink = DiagnosticSink.PRINT;
+
+	public CompilerContext() {
+	}
+
+	/** A new context with the same options as 'options' but none of its state. */
+	public CompilerContext(CompilerContext options) {
+		phase = options.phase;
+		debugLevel = options.debugLevel;
+		includeDir = options.includeDir;
+		generateEVMCode = options.generateEVMCode;
+		fileExt = options.fileExt;
+		writeCommentsInJasminFile = options.writeCommentsInJasminFile;
+		workingDirectory = options.workingDirectory;
+		standardInput = options.standardInput;
+		importCache = options.importCache;
+		incremental = options.incremental;
+		descentParser = options.descentParser;
+		keepParseTree = options.keepParseTree;
+		compactTree = options.compactTree;
+		sink = options.sink;
+	}
+
+	/** The context of the compilation running on this thread. */
+	public static CompilerContext current() {
+		CompilerContext c = current.get();
+		return c == null ? none : c;
+	}
+
+	/** Makes this the context of the current thread and returns the one it replaces. */
+	public CompilerContext bind() {
+		CompilerContext previous = current.get();
+		current.set(this);
+		return previous;
+	}
+
+	/** Puts back the context bind() returned. */
+	public static void unbind(CompilerContext previous) {
+		if (previous == null)
+			current.remove();
+		else
+			current.set(previous);
+	}
+
+	public void setSink(DiagnosticSink sink) {
+		this.sink = sink;
+	}
+
+	public DiagnosticSink getSink() {
+		return sink;
+	}
+
+	/** Resolves a file name given on the command line (or an include file)
+	 * against the working directory of this compilation. */
+	public File resolve(String name) {
+		File f = new File(name);
+		if (f.isAbsolute() || workingDirectory == null)
+			return f;
+		return new File(workingDirectory, name);
+	}
+
+	/** The file the dependency graph of the file being compiled is kept in,
+	 * next to the cached include files; null if there is no such place. */
+	public File dependencyFile() {
+		if (importCache == null || importCache.getDirectory() == null)
+			return null;
+		File source = resolve(fileName);
+		return new File(importCache.getDirectory(), source.getName() + "-" +
+				ImportCache.sha1(source.getAbsolutePath().getBytes()).substring(0, 16) + ".deps");
+	}
+
+	/** Stops the compilation, without a message, if it has been cancelled
+	 * (see Server/LanguageServer.java). */
+	public void checkCancelled() {
+		if (cancelled)
+			throw new CompilerException(1);
+	}
+
+	/** Sends d to the sink and carries on. */
+	public void report(Diagnostic d) {
+		sink.report(d);
+	}
+
+	/** Sends d to the sink and stops the compilation. */
+	public void abort(Diagnostic d) {
+		sink.report(d);
+		throw new CompilerException(1, d);
+	}
+}
@@ -0,0 +1,29 @@
+package Utilities;
+
+/** Thrown when a compilation cannot continue. The compiler never calls
+ * System.exit() itself; Espressoc.main catches this and exits with the status.
+ */
+public class CompilerException extends RuntimeException {
+	private int status;
+	private Diagnostic diagnostic;
+
+	public CompilerException(int status) {
+		this(status, null);
+	}
+
+	public CompilerException(int status, Diagnostic diagnostic) {
+		super(diagnostic == null ? "Compilation terminated with status " + status : diagnostic.toString());
+		this.status = status;
+		this.diagnostic = diagnostic;
+	}
+
+	/** The status the compiler used to pass to System.exit(). */
+	public int getStatus() {
+		return status;
+	}
+
+	/** The error that stopped the compilation, or null. */
+	public Diagnostic getDiagnostic() {
+		return diagnostic;
+	}
+}
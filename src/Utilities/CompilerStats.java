@@ -0,0 +1,107 @@
+package Utilities;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/** The totals of all the compilations with -Tstats made by this JVM; they
+ * are registered with the platform MBean server as Espressoc:type=Stats the
+ * first time a compilation is added, so a compile server (see
+ * Server/CompileServer.java) or a language server can be watched with
+ * jconsole or any other JMX client. The CPU time and the allocations only
+ * add up the passes where the JVM could tell.
+ */
+public class CompilerStats implements CompilerStatsMXBean {
+	private static CompilerStats instance;
+
+	private long compilations, failures;
+	private long wall, cpu, allocated, nodes, lookups;
+	private Map<String, Long> passes = new TreeMap<String, Long>();
+	private String lastFile = "", lastReport = "";
+
+	/** The totals, registered with JMX the first time they are asked for. */
+	public static synchronized CompilerStats get() {
+		if (instance == null) {
+			instance = new CompilerStats();
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(instance, new ObjectName("Espressoc:type=Stats"));
+			} catch (JMException e) {
+				// Someone else has the name; the totals are still kept.
+			}
+		}
+		return instance;
+	}
+
+	synchronized void add(Stats stats, Map<String, Object> json, int status) {
+		compilations++;
+		if (status != 0)
+			failures++;
+		for (Stats.Pass p : stats.passes()) {
+			wall += p.wall;
+			if (p.cpu > 0)
+				cpu += p.cpu;
+			if (p.allocated > 0)
+				allocated += p.allocated;
+			lookups += p.lookups;
+			String key = p.phase + "/" + p.name;
+			Long n = passes.get(key);
+			passes.put(key, (n == null ? 0 : n) + p.wall);
+		}
+		Object n = ((Map<?, ?>)json.get("total")).get("nodes");
+		nodes += ((Number)n).longValue();
+		lastFile = (String)json.get("file");
+		lastReport = Json.write(json);
+	}
+
+	public synchronized long getCompilations() {
+		return compilations;
+	}
+
+	public synchronized long getFailures() {
+		return failures;
+	}
+
+	public synchronized long getWallMillis() {
+		return wall / 1000000;
+	}
+
+	public synchronized long getCpuMillis() {
+		return cpu / 1000000;
+	}
+
+	public synchronized long getAllocatedBytes() {
+		return allocated;
+	}
+
+	public synchronized long getNodes() {
+		return nodes;
+	}
+
+	public synchronized long getLookups() {
+		return lookups;
+	}
+
+	public synchronized Map<String, Long> getPassWallMillis() {
+		Map<String, Long> millis = new TreeMap<String, Long>();
+		for (Map.Entry<String, Long> e : passes.entrySet())
+			millis.put(e.getKey(), e.getValue() / 1000000);
+		return millis;
+	}
+
+	public synchronized String getLastFile() {
+		return lastFile;
+	}
+
+	public synchronized String getLastReport() {
+		return lastReport;
+	}
+
+	public synchronized void reset() {
+		compilations = failures = 0;
+		wall = cpu = allocated = nodes = lookups = 0;
+		passes.clear();
+		lastFile = lastReport = "";
+	}
+}
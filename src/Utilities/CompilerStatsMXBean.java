@@ -0,0 +1,22 @@
+package Utilities;
+
+import java.util.Map;
+
+/** The totals of the compilations with -Tstats made by this JVM, as seen
+ * through JMX (see CompilerStats.java). The times are in milliseconds.
+ */
+public interface CompilerStatsMXBean {
+	long getCompilations();
+	long getFailures();
+	long getWallMillis();
+	long getCpuMillis();
+	long getAllocatedBytes();
+	long getNodes();
+	long getLookups();
+	/** The wall time spent in every pass, by "phase/pass". */
+	Map<String, Long> getPassWallMillis();
+	/** The file of the last compilation and its report as JSON (see Stats.java). */
+	String getLastFile();
+	String getLastReport();
+	void reset();
+}
@@ -0,0 +1,205 @@
+package Utilities;
+
+import java.io.*;
+import java.util.*;
+
+import AST.*;
+
+/** Which classes of a program depend on which, as found by the name checker
+ * (see NameChecker/DependencyFinder.java), together with two hashes for
+ * every class:
+ *
+ *   the source hash    - a hash of the parse tree of the class, so any edit
+ *                        of the class changes it, but moving it in the file
+ *                        does not.
+ *   the signature hash - a hash of everything other classes can see of the
+ *                        class: its modifiers, superclass, interfaces, and the
+ *                        names, types and modifiers of its fields, methods
+ *                        and constructors, including the ones it inherits.
+ *
+ * With -incremental the graph of the last successful compilation of a file
+ * is kept (see Phases/Phase3.java). A class only has to be checked again if
+ * its source hash changed or the signature hash of one of the classes it
+ * depends on changed; all the other classes are left alone and no code is
+ * generated for them. The file format is:
+ *
+ *   INT(MAGIC) INT(VERSION) INT(phase) INT(number of classes)
+ *   (UTF(name) UTF(source hash) UTF(signature hash) INT(n) UTF(dependency)^n)*
+ */
+public class DependencyGraph {
+	private static final int MAGIC = 0x45535044; // "ESPD"
+	private static final int VERSION = 2;
+
+	/** What is known about one class. */
+	public static class Node {
+		public String sourceHash;
+		public String signatureHash;
+		/** The names of the classes this class uses. */
+		public TreeSet<String> dependencies = new TreeSet<String>();
+	}
+
+	private TreeMap<String, Node> nodes = new TreeMap<String, Node>();
+
+	/** The phase the compilation that made this graph ran up to; a class is
+	 * only clean if it went through all the phases that are run now. */
+	public int phase;
+
+	/** The number of classes that were checked in the compilation that made
+	 * this graph, and the number of classes in it (not saved). */
+	public int checked, total;
+
+	public Node get(String className) {
+		return nodes.get(className);
+	}
+
+	public void put(String className, Node node) {
+		nodes.put(className, node);
+	}
+
+	/** True if the class has to be checked again: it is new, it has changed,
+	 * or a class it depends on has changed what it looks like from outside.
+	 *
+	 * @param previous the graph of the last successful compilation.
+	 */
+	public boolean isDirty(String className, DependencyGraph previous) {
+		Node now = nodes.get(className);
+		Node then = previous.nodes.get(className);
+		if (previous.phase < phase)
+			return true;
+		if (then == null || !then.sourceHash.equals(now.sourceHash))
+			return true;
+		for (String d : then.dependencies) {
+			Node dNow = nodes.get(d);
+			Node dThen = previous.nodes.get(d);
+			if (dNow == null || dThen == null || !dNow.signatureHash.equals(dThen.signatureHash))
+				return true;
+		}
+		return false;
+	}
+
+	// ------------------------------------------------------------------------
+	// Hashes
+
+	/** A hash of the parse tree of cd; must be called before the name checker
+	 * starts changing the tree. Where the nodes are in the file is left out,
+	 * so a class does not change when lines are added or removed above it. */
+	public static String sourceHash(ClassDecl cd) {
+		return ImportCache.sha1(ASTCodec.encodeWithoutPositions(cd));
+	}
+
+	/** A hash of what other classes can see of cd. The myDecls of the
+	 * superclass and the interfaces must have been set (see MyDeclSet.java).
+	 *
+	 * @param done the hashes already computed, by class name.
+	 */
+	public static String signatureHash(ClassDecl cd, HashMap<String, String> done) {
+		String hash = done.get(cd.name());
+		if (hash != null)
+			return hash;
+		// A class that (wrongly) inherits from itself must not loop forever;
+		// the name checker will complain about it.
+		done.put(cd.name(), "");
+
+		StringBuilder sb = new StringBuilder();
+		sb.append(cd.isInterface() ? "interface " : "class ").append(cd.getModifiers()).append(cd.name());
+		if (cd.superClass() != null) {
+			sb.append(" extends ").append(cd.superClass().typeName());
+			if (cd.superClass().myDecl != null)
+				sb.append("/").append(signatureHash(cd.superClass().myDecl, done));
+		}
+		for (int i = 0; i < cd.interfaces().nchildren; i++) {
+			ClassType ct = (ClassType)cd.interfaces().children[i];
+			sb.append(" implements ").append(ct.typeName());
+			if (ct.myDecl != null)
+				sb.append("/").append(signatureHash(ct.myDecl, done));
+		}
+		sb.append("\n");
+		Sequence body = cd.body();
+		for (int i = 0; i < body.nchildren; i++) {
+			AST a = body.children[i];
+			if (a instanceof FieldDecl) {
+				FieldDecl fd = (FieldDecl)a;
+				sb.append("field ").append(fd.getModifiers()).append(fd.type().signature()).append(" ").append(fd.name());
+				// The value of a constant is part of its signature.
+				if (fd.getModifiers().isFinal() && fd.var().init() instanceof Literal)
+					sb.append(" = ").append(fd.var().init());
+			} else if (a instanceof MethodDecl) {
+				MethodDecl md = (MethodDecl)a;
+				sb.append("method ").append(md.getModifiers()).append(md.returnType().signature()).append(" ")
+					.append(md.getname()).append("(").append(md.paramSignature()).append(")");
+			} else if (a instanceof ConstructorDecl) {
+				ConstructorDecl cod = (ConstructorDecl)a;
+				sb.append("constructor ").append(cod.getModifiers()).append("(").append(cod.paramSignature()).append(")");
+			} else if (a instanceof StaticInitDecl)
+				sb.append("static initializer");
+			sb.append("\n");
+		}
+		hash = ImportCache.sha1(sb.toString().getBytes());
+		done.put(cd.name(), hash);
+		return hash;
+	}
+
+	// ------------------------------------------------------------------------
+	// Reading and writing
+
+	/** Reads a graph; returns an empty graph if there is none (or it cannot be read). */
+	public static DependencyGraph read(File file) {
+		DependencyGraph g = new DependencyGraph();
+		if (file == null || !file.exists())
+			return g;
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try {
+				if (in.readInt() != MAGIC || in.readInt() != VERSION)
+					return g;
+				g.phase = in.readInt();
+				int n = in.readInt();
+				for (int i = 0; i < n; i++) {
+					String name = in.readUTF();
+					Node node = new Node();
+					node.sourceHash = in.readUTF();
+					node.signatureHash = in.readUTF();
+					int m = in.readInt();
+					for (int j = 0; j < m; j++)
+						node.dependencies.add(in.readUTF());
+					g.nodes.put(name, node);
+				}
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			return new DependencyGraph();
+		}
+		return g;
+	}
+
+	/** Writes the graph. A graph that cannot be written is not an error; the
+	 * next compilation will just check everything. */
+	public void write(File file) {
+		if (file == null)
+			return;
+		try {
+			file.getParentFile().mkdirs();
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(phase);
+				out.writeInt(nodes.size());
+				for (Map.Entry<String, Node> e : nodes.entrySet()) {
+					Node node = e.getValue();
+					out.writeUTF(e.getKey());
+					out.writeUTF(node.sourceHash);
+					out.writeUTF(node.signatureHash);
+					out.writeInt(node.dependencies.size());
+					for (String d : node.dependencies)
+						out.writeUTF(d);
+				}
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			file.delete();
+		}
+	}
+}
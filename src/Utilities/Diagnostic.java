@@ -0,0 +1,36 @@
+package Utilities;
+
+/** A message produced by the compiler about the program being compiled.
+ */
+public class Diagnostic {
+	/** The file the message is about, or null for messages that are not about a file. */
+	public final String fileName;
+	/** The line the message is about, or -1 if it is not about a line. */
+	public final int line;
+	public final String message;
+	/** The include file the message is really about (line is a line of that
+	 * file), or null if it is about the file itself. The compiler has always
+	 * printed the name of the file being compiled for these too. */
+	public final String include;
+
+	public Diagnostic(String fileName, int line, String message) {
+		this(fileName, null, line, message);
+	}
+
+	public Diagnostic(String fileName, String include, int line, String message) {
+		this.fileName = fileName;
+		this.include = include;
+		this.line = line;
+		this.message = message;
+	}
+
+	/** Formats the message the way the compiler has always printed it:
+	 * file:line: message */
+	public String toString() {
+		if (fileName == null)
+			return message;
+		if (line < 0)
+			return fileName + ": " + message;
+		return fileName + ":" + line + ": " + message;
+	}
+}
@@ -0,0 +1,15 @@
+package Utilities;
+
+/** Receives the diagnostics of a compilation. Set one on a CompilerContext to
+ * collect the messages instead of printing them.
+ */
+public interface DiagnosticSink {
+	public void report(Diagnostic d);
+
+	/** The default sink: prints every diagnostic on System.out. */
+	public static final DiagnosticSink PRINT = new DiagnosticSink() {
+		public void report(Diagnostic d) {
+			System.out.println(d);
+		}
+	};
+}
@@ -2,32 +2,54 @@ package Utilities;
 
 import AST.*;
 
+/** Reports errors to the sink of the compilation running on this thread (see
+ * CompilerContext.java). The versions that terminate throw a CompilerException
+ * which ends the compilation.
+ */
 public class Error {
-	public static String fileName = "";
 
 	public static void setFileName(String name) {
-		fileName = name;
+		CompilerContext.current().fileName = name;
+	}
+
+	public static String fileName() {
+		return CompilerContext.current().fileName;
 	}
 
 	public static void error(AST e, String msg) {
-		System.out.println(fileName + ":" + e.line + ": " + msg);
-		System.exit(1);
+		error(e, msg, true);
 	}   
 
 	public static void error(String msg) {
-		System.out.println(fileName + ": " + msg);
-		System.exit(1);
+		error(msg, true);
 	}
 
 	public static void error(AST e, String msg, boolean terminate) {
-		System.out.println(fileName + ":" + e.line + ": " + msg);
-		if (terminate)
-			System.exit(1);
+		error(e.line, msg, terminate);
 	}   
 
 	public static void error(String msg, boolean terminate) {
-		System.out.println(fileName + ": " + msg);
+		error(-1, msg, terminate);
+	}
+
+	public static void error(int line, String msg, boolean terminate) {
+		CompilerContext context = CompilerContext.current();
+		Diagnostic d = new Diagnostic(context.fileName, context.include, line, msg);
 		if (terminate)
-			System.exit(1);
+			context.abort(d);
+		else
+			context.report(d);
+	}
+
+	/** Reports a message that is not about the file being compiled
+	 * (printed without the file name) and terminates. */
+	public static void fatal(String msg) {
+		CompilerContext context = CompilerContext.current();
+		context.abort(new Diagnostic(null, context.include, -1, msg));
+	}
+
+	/** Terminates the compilation with the given status. */
+	public static void terminate(int status) {
+		throw new CompilerException(status);
 	}
 }
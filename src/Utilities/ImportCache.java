@@ -0,0 +1,258 @@
+package Utilities;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import AST.*;
+
+/** The parsed include files. Every include file is parsed once; the
+ * compilations that import it each get a private copy of its classes,
+ * because the later phases fill in the trees they are given.
+ *
+ * A file is cached without the files it imports itself (see
+ * parser.getImportFile()), so that every compilation can still decide which
+ * files it has already imported.
+ *
+ * Entries are kept in memory for as long as the cache lives (a batch, or the
+ * compile server), and, if a directory is given, on disk so that the next
+ * run of the compiler does not have to parse the file again. An entry is
+ * only used if the path, the size and the SHA-1 of the contents of the file
+ * are the same as when it was parsed. The file format is:
+ *
+ *   INT(MAGIC) INT(VERSION) UTF(path) LONG(size) UTF(hash)
+ *   INT(number of imports) UTF(import)*
+ *   INT(number of classes) (UTF(class name) INT(length))*
+ *   BYTE* (the ClassDecls encoded by ASTCodec, one after the other, in the order of the index)
+ *
+ * The index lets a reader find or skip single classes; every ClassDecl is
+ * stored on its own.
+ */
+public class ImportCache {
+	private static final int MAGIC = 0x45535043; // "ESPC"
+	/** Changed whenever what an entry holds changes, so that older files
+	 * are parsed again (2: only the signatures of the classes are kept,
+	 * see Scanner.signaturesOnly). */
+	private static final int VERSION = 2;
+
+	/** What one include file contributes to a program: its own classes and
+	 * the names of the files it imports, in the order they were imported. */
+	public static class Entry {
+		private long size;
+		private String hash;
+		private String classNames[];
+		private byte[] images[];
+		/** A copy nobody has used yet (made when the entry was read from disk). */
+		private Sequence unused;
+		public final String[] imports;
+
+		public Entry(Sequence classes, List<String> imports) {
+			this.imports = imports.toArray(new String[imports.size()]);
+			classNames = new String[classes.nchildren];
+			images = new byte[classes.nchildren][];
+			for (int i = 0; i < classes.nchildren; i++) {
+				ClassDecl cd = (ClassDecl)classes.children[i];
+				classNames[i] = cd.name();
+				images[i] = ASTCodec.encode(cd);
+			}
+		}
+
+		private Entry(String imports[], String classNames[], byte[] images[], long size, String hash) {
+			this.imports = imports;
+			this.classNames = classNames;
+			this.images = images;
+			this.size = size;
+			this.hash = hash;
+		}
+
+		/** A private copy of the classes of the file. */
+		public Sequence classes() {
+			synchronized (this) {
+				if (unused != null) {
+					Sequence s = unused;
+					unused = null;
+					return s;
+				}
+			}
+			Sequence s = new Sequence();
+			for (int i = 0; i < images.length; i++)
+				s.append((ClassDecl)ASTCodec.decode(images[i]));
+			return s;
+		}
+	}
+
+	/** Parses a file that is not in the cache yet. */
+	public interface Loader {
+		public Entry load(SourceFile source) throws Exception;
+	}
+
+	/** Holds the entry of one file; the first compilation to ask for the file
+	 * loads it while holding the slot, the others wait for it. */
+	private static class Slot {
+		Entry entry;
+	}
+
+	private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<String, Slot>();
+	/** Where the entries are stored between runs; null to keep them in memory only. */
+	private File directory;
+
+	public ImportCache(File directory) {
+		this.directory = directory;
+	}
+
+	/** Where the entries are stored between runs; null if they are not. */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/** Returns the entry of 'file'. If the file has changed since it was last
+	 * parsed (or was never parsed) the loader is called to parse it. If the
+	 * loader fails nothing is cached, so the next compilation to import the
+	 * file will try (and report the error) again. */
+	public Entry get(File file, Loader loader) throws Exception {
+		String key = file.getAbsolutePath();
+		byte text[] = readFile(file);
+		String hash = sha1(text);
+
+		Slot slot = slots.get(key);
+		if (slot == null) {
+			Slot s = new Slot();
+			slot = slots.putIfAbsent(key, s);
+			if (slot == null)
+				slot = s;
+		}
+		synchronized (slot) {
+			if (slot.entry != null && slot.entry.size == text.length && slot.entry.hash.equals(hash))
+				return slot.entry;
+			File cacheFile = cacheFile(key, file.getName());
+			Entry entry = cacheFile == null ? null : read(cacheFile, key, text.length, hash);
+			if (entry == null) {
+				// The loader may run on its own after the compilation that
+				// asked for the file is over.
+				Symbols.use();
+				try {
+					entry = loader.load(SourceFile.decode(ByteBuffer.wrap(text)));
+				} finally {
+					Symbols.release();
+				}
+				entry.size = text.length;
+				entry.hash = hash;
+				if (cacheFile != null)
+					write(cacheFile, key, entry);
+			}
+			slot.entry = entry;
+			return entry;
+		}
+	}
+
+	/** The file the entry of the include file at 'path' is stored in. */
+	private File cacheFile(String path, String name) {
+		if (directory == null)
+			return null;
+		return new File(directory, name + "-" + sha1(path.getBytes()).substring(0, 16) + ".ast");
+	}
+
+	/** Reads an entry; returns null if there is none for this version of the file. */
+	private static Entry read(File cacheFile, String path, long size, String hash) {
+		if (!cacheFile.exists())
+			return null;
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+			try {
+				if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(path) ||
+						in.readLong() != size || !in.readUTF().equals(hash))
+					return null;
+				String imports[] = new String[in.readInt()];
+				for (int i = 0; i < imports.length; i++)
+					imports[i] = in.readUTF();
+				int n = in.readInt();
+				String classNames[] = new String[n];
+				byte[] images[] = new byte[n][];
+				for (int i = 0; i < n; i++) {
+					classNames[i] = in.readUTF();
+					images[i] = new byte[in.readInt()];
+				}
+				for (int i = 0; i < n; i++)
+					in.readFully(images[i]);
+				// Decoding fails if the classes no longer fit the compiler
+				// that reads them; the copy is kept for the first user.
+				Entry entry = new Entry(imports, classNames, images, size, hash);
+				entry.unused = entry.classes();
+				return entry;
+			} finally {
+				in.close();
+			}
+		} catch (Exception e) {
+			// A broken or outdated cache file is simply parsed again.
+			return null;
+		}
+	}
+
+	/** Writes an entry. A cache that cannot be written is not an error. The
+	 * entry is written to a temporary file first so that other compilers never
+	 * see half a file. */
+	private static void write(File cacheFile, String path, Entry entry) {
+		File tmp = null;
+		try {
+			cacheFile.getParentFile().mkdirs();
+			tmp = File.createTempFile(cacheFile.getName(), ".tmp", cacheFile.getParentFile());
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeUTF(path);
+				out.writeLong(entry.size);
+				out.writeUTF(entry.hash);
+				out.writeInt(entry.imports.length);
+				for (int i = 0; i < entry.imports.length; i++)
+					out.writeUTF(entry.imports[i]);
+				out.writeInt(entry.images.length);
+				for (int i = 0; i < entry.images.length; i++) {
+					out.writeUTF(entry.classNames[i]);
+					out.writeInt(entry.images[i].length);
+				}
+				for (int i = 0; i < entry.images.length; i++)
+					out.write(entry.images[i]);
+			} finally {
+				out.close();
+			}
+			if (!tmp.renameTo(cacheFile)) {
+				cacheFile.delete();
+				if (!tmp.renameTo(cacheFile))
+					tmp.delete();
+			}
+		} catch (IOException e) {
+			if (tmp != null)
+				tmp.delete();
+		}
+	}
+
+	private static byte[] readFile(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream((int)file.length());
+			byte buf[] = new byte[8192];
+			int n;
+			while ((n = in.read(buf)) > 0)
+				bytes.write(buf, 0, n);
+			return bytes.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	/** The SHA-1 of data as a hex string. */
+	public static String sha1(byte data[]) {
+		try {
+			byte digest[] = MessageDigest.getInstance("SHA-1").digest(data);
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < digest.length; i++)
+				sb.append(Integer.toHexString((digest[i] & 0xff) | 0x100).substring(1));
+			return sb.toString();
+		} catch (java.security.NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
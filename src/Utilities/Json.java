@@ -0,0 +1,233 @@
+package Utilities;
+
+import java.util.*;
+
+/** Reads and writes JSON (see Server/LanguageServer.java). An object is read
+ * into a LinkedHashMap, an array into an ArrayList, a number into a Long if
+ * it is a whole number and a Double if not, and true, false and null into
+ * Boolean.TRUE, Boolean.FALSE and null; write() takes the same (any Map,
+ * List or Number will do).
+ */
+public class Json {
+	private String text;
+	private int pos;
+
+	private Json(String text) {
+		this.text = text;
+	}
+
+	/** The value in text; throws an IllegalArgumentException if it is not JSON. */
+	public static Object parse(String text) {
+		Json json = new Json(text);
+		Object value = json.value();
+		json.skip();
+		if (json.pos != text.length())
+			throw json.error();
+		return value;
+	}
+
+	/** The JSON text of 'value'. */
+	public static String write(Object value) {
+		StringBuilder sb = new StringBuilder();
+		write(value, sb);
+		return sb.toString();
+	}
+
+	/** A map to build an object in, with the first key and value in it. */
+	public static Map<String, Object> object(String key, Object value) {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put(key, value);
+		return map;
+	}
+
+	// ------------------------------------------------------------------------
+	// Reading
+
+	private IllegalArgumentException error() {
+		return new IllegalArgumentException("Not JSON at " + pos + ".");
+	}
+
+	private void skip() {
+		while (pos < text.length() && Character.isWhitespace(text.charAt(pos)))
+			pos++;
+	}
+
+	private char peek() {
+		skip();
+		if (pos == text.length())
+			throw error();
+		return text.charAt(pos);
+	}
+
+	private void expect(char c) {
+		if (peek() != c)
+			throw error();
+		pos++;
+	}
+
+	private Object value() {
+		char c = peek();
+		switch (c) {
+		case '{': {
+			pos++;
+			Map<String, Object> map = new LinkedHashMap<String, Object>();
+			if (peek() == '}') {
+				pos++;
+				return map;
+			}
+			do {
+				if (peek() != '"')
+					throw error();
+				String key = string();
+				expect(':');
+				map.put(key, value());
+			} while (next(','));
+			expect('}');
+			return map;
+		}
+		case '[': {
+			pos++;
+			List<Object> list = new ArrayList<Object>();
+			if (peek() == ']') {
+				pos++;
+				return list;
+			}
+			do
+				list.add(value());
+			while (next(','));
+			expect(']');
+			return list;
+		}
+		case '"':
+			return string();
+		}
+		if (text.startsWith("true", pos)) {
+			pos += 4;
+			return Boolean.TRUE;
+		}
+		if (text.startsWith("false", pos)) {
+			pos += 5;
+			return Boolean.FALSE;
+		}
+		if (text.startsWith("null", pos)) {
+			pos += 4;
+			return null;
+		}
+		return number();
+	}
+
+	private boolean next(char c) {
+		if (peek() != c)
+			return false;
+		pos++;
+		return true;
+	}
+
+	private String string() {
+		pos++;
+		StringBuilder sb = new StringBuilder();
+		while (true) {
+			if (pos >= text.length())
+				throw error();
+			char c = text.charAt(pos++);
+			if (c == '"')
+				return sb.toString();
+			if (c != '\\') {
+				sb.append(c);
+				continue;
+			}
+			if (pos >= text.length())
+				throw error();
+			c = text.charAt(pos++);
+			switch (c) {
+			case 'b': sb.append('\b'); break;
+			case 'f': sb.append('\f'); break;
+			case 'n': sb.append('\n'); break;
+			case 'r': sb.append('\r'); break;
+			case 't': sb.append('\t'); break;
+			case 'u':
+				if (pos + 4 > text.length())
+					throw error();
+				try {
+					sb.append((char)Integer.parseInt(text.substring(pos, pos + 4), 16));
+				} catch (NumberFormatException e) {
+					throw error();
+				}
+				pos += 4;
+				break;
+			default: sb.append(c);
+			}
+		}
+	}
+
+	private Object number() {
+		int start = pos;
+		while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0)
+			pos++;
+		String number = text.substring(start, pos);
+		try {
+			if (number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0)
+				return Long.valueOf(number);
+			return Double.valueOf(number);
+		} catch (NumberFormatException e) {
+			pos = start;
+			throw error();
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	// Writing
+
+	private static void write(Object value, StringBuilder sb) {
+		if (value == null)
+			sb.append("null");
+		else if (value instanceof String)
+			quote((String)value, sb);
+		else if (value instanceof Map) {
+			sb.append('{');
+			boolean first = true;
+			for (Map.Entry<?, ?> e : ((Map<?, ?>)value).entrySet()) {
+				if (!first)
+					sb.append(',');
+				first = false;
+				quote(String.valueOf(e.getKey()), sb);
+				sb.append(':');
+				write(e.getValue(), sb);
+			}
+			sb.append('}');
+		} else if (value instanceof List) {
+			sb.append('[');
+			boolean first = true;
+			for (Object o : (List<?>)value) {
+				if (!first)
+					sb.append(',');
+				first = false;
+				write(o, sb);
+			}
+			sb.append(']');
+		} else if (value instanceof Number || value instanceof Boolean)
+			sb.append(value);
+		else
+			quote(value.toString(), sb);
+	}
+
+	private static void quote(String s, StringBuilder sb) {
+		sb.append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+			case '"':  sb.append("\\\""); break;
+			case '\\': sb.append("\\\\"); break;
+			case '\n': sb.append("\\n"); break;
+			case '\r': sb.append("\\r"); break;
+			case '\t': sb.append("\\t"); break;
+			default:
+				if (c < 0x20)
+					sb.append(String.format("\\u%04x", (int)c));
+				else
+					sb.append(c);
+			}
+		}
+		sb.append('"');
+	}
+}
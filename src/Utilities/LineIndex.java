@@ -0,0 +1,106 @@
+package Utilities;
+
+/** The text a scanner has read so far and the offset in it at which every
+ * line starts. Error messages that show the line they are about slice it out
+ * of the text when they need it, so the scanner does not have to build the
+ * current line for every token it reads.
+ *
+ * A LineIndex made for a whole source file (see SourceFile.java) uses the
+ * array the file was decoded into, which the scanner also scans out of, so
+ * appending the text just scanned only finds the lines in it.
+ *
+ * Lines end like they do for JFlex's line counting: at "\r", "\n" or
+ * "\r\n". Lines are numbered from 1.
+ */
+public class LineIndex {
+	private char text[];
+	private int length;
+	/** lineStarts[i] is the offset of the first character of line i+1. */
+	private int lineStarts[] = new int[256];
+	private int lines = 1;
+	/** True if the last character appended was a '\r'. */
+	private boolean afterCR;
+	/** True if the text is already in place; see the constructors. */
+	private boolean complete;
+
+	public LineIndex() {
+		text = new char[4096];
+	}
+
+	/** A line index over a text that is already all there; append() must
+	 * then be given this very array, from the start and in order. */
+	public LineIndex(char text[]) {
+		this.text = text;
+		complete = true;
+	}
+
+	/** Appends len characters of buf, starting at off, to the text. */
+	public void append(char buf[], int off, int len) {
+		if (!complete) {
+			if (length + len > text.length) {
+				char t[] = new char[Math.max(2 * text.length, length + len)];
+				System.arraycopy(text, 0, t, 0, length);
+				text = t;
+			}
+			System.arraycopy(buf, off, text, length, len);
+		}
+		for (int i = 0; i < len; i++) {
+			char c = buf[off + i];
+			if (c == '\r')
+				newLine(length + i + 1);
+			else if (c == '\n') {
+				if (afterCR)
+					lineStarts[lines - 1]++;
+				else
+					newLine(length + i + 1);
+			}
+			afterCR = c == '\r';
+		}
+		length += len;
+	}
+
+	private void newLine(int start) {
+		if (lines == lineStarts.length) {
+			int l[] = new int[2 * lines];
+			System.arraycopy(lineStarts, 0, l, 0, lines);
+			lineStarts = l;
+		}
+		lineStarts[lines++] = start;
+	}
+
+	/** The number of characters appended so far. */
+	public int length() {
+		return length;
+	}
+
+	/** len characters of the text, starting at off. */
+	public String text(int off, int len) {
+		return new String(text, off, len);
+	}
+
+	/** The number of lines seen so far. */
+	public int lines() {
+		return lines;
+	}
+
+	/** The offset in the text at which a line starts. */
+	public int lineStart(int line) {
+		return lineStarts[line - 1];
+	}
+
+	/** A line, without its line terminator. */
+	public String line(int line) {
+		int start = lineStarts[line - 1];
+		int end = line < lines ? lineStarts[line] : length;
+		while (end > start && (text[end - 1] == '\n' || text[end - 1] == '\r'))
+			end--;
+		return new String(text, start, end - start);
+	}
+
+	/** A line from its start up to the end of the text read so far; this is
+	 * the line (part of it) the scanner is on when 'line' is the last one. */
+	public String lineSoFar(int line) {
+		int start = lineStarts[line - 1];
+		return new String(text, start, length - start);
+	}
+}
@@ -2,7 +2,6 @@ package Utilities;
 
 import AST.*;
 import Utilities.Visitor;
-import Phases.*;
 
 /** Prints the parse tree
  * 
@@ -124,8 +123,8 @@ public class PrintVisitor extends Visitor {
 		else
 			System.out.println(indent(cd.line) + "ClassDecl: (Interface)");
 		System.out.println(indent(cd.line) + "  [Name       :: " + cd.className() + " ]");
-		System.out.println(indent(cd.line) + "  [MethodTable:: " + cd.methodTable + " ]");
-		System.out.println(indent(cd.line) + "  [FieldTable :: " + cd.fieldTable + " ]");
+		System.out.println(indent(cd.line) + "  [MethodTable:: " + cd.methodTable() + " ]");
+		System.out.println(indent(cd.line) + "  [FieldTable :: " + cd.fieldTable() + " ]");
 		System.out.println(indent(cd.line) + "  [Modifiers  :: " + cd.modifiers + "]");
 		if (cd.isClass()) 
 			if (cd.superClass() != null)
@@ -158,7 +157,7 @@ public class PrintVisitor extends Visitor {
 	/** COMPILATION UNIT */
 	public Object visitCompilation(Compilation co) {
 		System.out.println(indent(co.line) + "Compilation:");
-		System.out.println(indent(co.line) + "  [ClassTable:: " + Phase.classTable + " ]");
+		System.out.println(indent(co.line) + "  [ClassTable:: " + CompilerContext.current().classTable + " ]");
 		indent += 2;
 		super.visitCompilation(co);
 		indent -= 2;
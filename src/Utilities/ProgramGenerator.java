@@ -0,0 +1,297 @@
+package Utilities;
+
+import java.io.*;
+import java.util.Random;
+
+/** Writes Espresso programs of any size for the benchmarks (see
+ * bench/Benchmarks/ScalingBenchmark.java). The same options and seed always
+ * give the same program, and every program compiles (through Phase 5).
+ *
+ * The classes are numbered C0, C1, ...; class i extends class (i-1)/width,
+ * as long as that keeps the hierarchy at most 'depth' classes deep, so the
+ * classes make a forest of complete trees. Every class has 'fields' fields
+ * of its own and the same 'methods' methods m0, m1, ... (int m(int a, int b)),
+ * so every method overrides the one of the super class. Each 'diamond' is
+ * an interface Top with two sub interfaces Left and Right, implemented by
+ * one of the classes.
+ *
+ * A method declares 'locals' int locals with initializers and, in a class
+ * with a super class, a local of the type of one of its super classes, set
+ * to 'this'. Then comes a statement list of 'statements' assignments, with
+ * an if, a while or a for around a statement list of the same kind inside
+ * it, 'nesting' deep, and a return. The
+ * expressions are trees of +, -, * and calls of the methods, 'expression'
+ * deep, over the locals, the parameters, the fields and literals. The int
+ * literals have 'literal' digits (at most 9) and every method has a String
+ * literal 'literal' characters long.
+ *
+ * Usage: java Utilities.ProgramGenerator [-option value ...] [-o file]
+ * where the options are -seed and the fields below (-classes 100 ...).
+ */
+public class ProgramGenerator {
+	public long seed = 1;
+	public int classes = 10;
+	public int depth = 3;
+	public int width = 2;
+	public int diamonds = 1;
+	public int methods = 3;
+	public int fields = 2;
+	public int locals = 3;
+	public int statements = 3;
+	public int nesting = 2;
+	public int expression = 2;
+	public int literal = 3;
+
+	private Random random;
+	private StringBuilder sb;
+	/** The super class of every class (-1 for none) and how deep it is. */
+	private int parent[], level[];
+
+	/** Sets an option by name ("classes", "depth", ...). */
+	public void set(String option, String value) {
+		try {
+			if (option.equals("seed")) {
+				seed = Long.parseLong(value);
+				return;
+			}
+			int n = Integer.parseInt(value);
+			if (n < 0)
+				throw new NumberFormatException();
+			getClass().getField(option).setInt(this, n);
+		} catch (NoSuchFieldException e) {
+			throw new IllegalArgumentException("No option '" + option + "'.");
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException("No option '" + option + "'.");
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Bad value '" + value + "' for option '" + option + "'.");
+		}
+	}
+
+	/** Sets the options in a list like "classes=100,depth=10" (or with
+	 * semicolons between them). */
+	public void setAll(String options) {
+		if (options.length() == 0)
+			return;
+		String pairs[] = options.split("[,;]");
+		for (int i = 0; i < pairs.length; i++) {
+			int eq = pairs[i].indexOf('=');
+			if (eq < 0)
+				throw new IllegalArgumentException("No value for option '" + pairs[i] + "'.");
+			set(pairs[i].substring(0, eq).trim(), pairs[i].substring(eq + 1).trim());
+		}
+	}
+
+	/** The text of the program. */
+	public String generate() {
+		random = new Random(seed);
+		sb = new StringBuilder();
+		sb.append("// Generated by Utilities/ProgramGenerator.java: seed=").append(seed)
+			.append(",classes=").append(classes).append(",depth=").append(depth)
+			.append(",width=").append(width).append(",diamonds=").append(diamonds)
+			.append(",methods=").append(methods).append(",fields=").append(fields)
+			.append(",locals=").append(locals).append(",statements=").append(statements)
+			.append(",nesting=").append(nesting).append(",expression=").append(expression)
+			.append(",literal=").append(literal).append("\n\n");
+
+		for (int k = 0; k < diamonds && classes > 0; k++) {
+			sb.append("interface Top").append(k).append(" {\n");
+			sb.append("    public int d").append(k).append("(int a);\n}\n\n");
+			sb.append("interface Left").append(k).append(" extends Top").append(k).append(" {\n");
+			sb.append("    public int l").append(k).append("(int a);\n}\n\n");
+			sb.append("interface Right").append(k).append(" extends Top").append(k).append(" {\n");
+			sb.append("    public int r").append(k).append("(int a);\n}\n\n");
+		}
+
+		parent = new int[classes];
+		level = new int[classes];
+		int w = Math.max(width, 1);
+		for (int i = 0; i < classes; i++) {
+			parent[i] = i == 0 ? -1 : (i - 1) / w;
+			if (parent[i] >= 0 && level[parent[i]] + 1 >= Math.max(depth, 1))
+				parent[i] = -1;
+			level[i] = parent[i] < 0 ? 0 : level[parent[i]] + 1;
+		}
+		for (int i = 0; i < classes; i++)
+			classDecl(i);
+		return sb.toString();
+	}
+
+	private void classDecl(int c) {
+		sb.append("class C").append(c);
+		if (parent[c] >= 0)
+			sb.append(" extends C").append(parent[c]);
+		// Diamond k is implemented by class k (and so by its sub classes).
+		boolean first = true;
+		for (int k = c; k < diamonds; k += classes) {
+			sb.append(first ? " implements " : ", ");
+			sb.append("Left").append(k).append(", Right").append(k);
+			first = false;
+		}
+		sb.append(" {\n");
+		for (int j = 0; j < fields; j++)
+			sb.append("    public int f").append(c).append('_').append(j).append(";\n");
+		for (int k = c; k < diamonds; k += classes) {
+			sb.append("\n    public int d").append(k).append("(int a) { return a + ").append(intLiteral()).append("; }\n");
+			sb.append("    public int l").append(k).append("(int a) { return d").append(k).append("(a); }\n");
+			sb.append("    public int r").append(k).append("(int a) { return d").append(k).append("(a) - 1; }\n");
+		}
+		for (int j = 0; j < methods; j++)
+			method(c, j);
+		sb.append("}\n\n");
+	}
+
+	private void method(int c, int m) {
+		sb.append("\n    public int m").append(m).append("(int a, int b) {\n");
+		for (int i = 0; i < locals; i++) {
+			sb.append("        int l").append(i).append(" = ");
+			expression(c, expression, i);
+			sb.append(";\n");
+		}
+		if (parent[c] >= 0) {
+			int p = parent[c];
+			for (int up = random.nextInt(level[c]); up > 0; up--)
+				p = parent[p];
+			sb.append("        C").append(p).append(" o = this;\n");
+		}
+		if (literal > 0) {
+			sb.append("        String s = \"");
+			for (int i = 0; i < literal; i++)
+				sb.append((char)('a' + random.nextInt(26)));
+			sb.append("\";\n");
+		}
+		statements(c, nesting, 2);
+		sb.append("        return ");
+		expression(c, expression, locals);
+		sb.append(";\n    }\n");
+	}
+
+	/** A statement list, indented 'indent' levels, with a compound statement
+	 * 'nesting' deep at its end. */
+	private void statements(int c, int nesting, int indent) {
+		for (int i = 0; i < statements; i++) {
+			indent(indent);
+			if (locals > 0)
+				sb.append("l").append(random.nextInt(locals));
+			else
+				sb.append("a");
+			sb.append(" = ");
+			expression(c, expression, locals);
+			sb.append(";\n");
+		}
+		if (nesting == 0)
+			return;
+		indent(indent);
+		String loop = "i" + nesting;
+		switch (random.nextInt(3)) {
+		case 0:
+			sb.append("if (");
+			condition(c);
+			sb.append(") {\n");
+			statements(c, nesting - 1, indent + 1);
+			indent(indent);
+			sb.append("} else {\n");
+			statements(c, nesting - 1, indent + 1);
+			break;
+		case 1:
+			sb.append("while (");
+			condition(c);
+			sb.append(") {\n");
+			statements(c, nesting - 1, indent + 1);
+			break;
+		default:
+			sb.append("for (int ").append(loop).append(" = 0; ").append(loop).append(" < ").append(intLiteral())
+				.append("; ").append(loop).append(" = ").append(loop).append(" + 1) {\n");
+			statements(c, nesting - 1, indent + 1);
+		}
+		indent(indent);
+		sb.append("}\n");
+	}
+
+	private void condition(int c) {
+		expression(c, expression, locals);
+		sb.append(random.nextBoolean() ? " < " : " == ");
+		expression(c, expression, locals);
+	}
+
+	/** An int expression 'depth' deep over the first 'locals' locals. */
+	private void expression(int c, int depth, int locals) {
+		if (depth == 0) {
+			int choice = random.nextInt(4);
+			if (choice == 0 && locals > 0)
+				sb.append("l").append(random.nextInt(locals));
+			else if (choice == 1 && fields > 0)
+				sb.append(random.nextBoolean() ? "" : "this.").append("f").append(c).append('_').append(random.nextInt(fields));
+			else if (choice == 2)
+				sb.append(random.nextBoolean() ? "a" : "b");
+			else
+				sb.append(intLiteral());
+			return;
+		}
+		int choice = random.nextInt(4);
+		if (choice == 0 && methods > 0) {
+			sb.append("m").append(random.nextInt(methods)).append("(");
+			expression(c, depth - 1, locals);
+			sb.append(", ");
+			expression(c, depth - 1, locals);
+			sb.append(")");
+		} else {
+			sb.append("(");
+			expression(c, depth - 1, locals);
+			sb.append(choice == 1 ? " + " : choice == 2 ? " - " : " * ");
+			expression(c, depth - 1, locals);
+			sb.append(")");
+		}
+	}
+
+	private String intLiteral() {
+		int digits = Math.max(1, Math.min(literal, 9));
+		StringBuilder n = new StringBuilder();
+		n.append((char)('1' + random.nextInt(9)));
+		for (int i = 1; i < digits; i++)
+			n.append((char)('0' + random.nextInt(10)));
+		return n.toString();
+	}
+
+	private void indent(int n) {
+		for (int i = 0; i < n; i++)
+			sb.append("    ");
+	}
+
+	public static void main(String args[]) {
+		ProgramGenerator g = new ProgramGenerator();
+		String output = null;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-o"))
+					output = args[++i];
+				else if (args[i].startsWith("-"))
+					g.set(args[i].substring(1), args[++i]);
+				else
+					throw new IllegalArgumentException("Unknown argument '" + args[i] + "'.");
+			}
+		} catch (ArrayIndexOutOfBoundsException e) {
+			System.out.println("Usage: java Utilities.ProgramGenerator [-seed n] [-classes n] [-depth n] [-width n] [-diamonds n]");
+			System.out.println("           [-methods n] [-fields n] [-locals n] [-statements n] [-nesting n] [-expression n] [-literal n] [-o file]");
+			System.exit(1);
+		} catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+			System.exit(1);
+		}
+		String program = g.generate();
+		try {
+			if (output == null)
+				System.out.print(program);
+			else {
+				Writer out = new OutputStreamWriter(new FileOutputStream(output));
+				try {
+					out.write(program);
+				} finally {
+					out.close();
+				}
+			}
+		} catch (IOException e) {
+			System.out.println("Could not write " + output + " : " + e);
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package Utilities;
+
+import java.util.Arrays;
+
+/** The scopes of the parameters and locals of a method, as used by the name
+ * checker. Where a chain of SymbolTables allocates a table for every block,
+ * a ScopeStack keeps all the declarations that are in scope in one array,
+ * innermost last, and remembers where every open scope starts:
+ *
+ *   newScope()   - remembers the current top of the array.
+ *   put()        - pushes a declaration.
+ *   closeScope() - pops everything declared since the matching newScope().
+ *
+ * For every symbol (see Symbols.java) the position of its innermost
+ * declaration is kept in an array indexed by the symbol, and every
+ * declaration remembers the one it hides, so put(), get() and popping a
+ * declaration take constant time, and nothing is allocated once the arrays
+ * are big enough. One ScopeStack is used for all the methods of all the
+ * classes a name checker visits.
+ *
+ * A name that is not declared in any of the scopes is looked up in the
+ * outer table (the field table of the class).
+ */
+public class ScopeStack {
+	/** The table below the scopes; null if there is none. */
+	private SymbolTable outer;
+
+	// The declarations in scope, innermost last.
+	private int symbols[] = new int[64];
+	private Object decls[] = new Object[64];
+	/** For every declaration, 1 + the position of the declaration of the
+	 * same symbol it hides, or 0. */
+	private int hidden[] = new int[64];
+	private int size;
+
+	/** The positions where the open scopes start, innermost last. */
+	private int marks[] = new int[16];
+	private int depth;
+
+	/** For every symbol, 1 + the position of its innermost declaration, or 0. */
+	private int innermost[] = new int[1024];
+
+	// For the statistics (see Stats.java): the number of lookups, and for
+	// every depth the number of scopes opened that deep.
+	private long lookups;
+	private long depths[] = new long[16];
+
+	/** Starts over with no open scopes on top of 'outer'. */
+	public void reset(SymbolTable outer) {
+		while (size > 0)
+			pop();
+		depth = 0;
+		this.outer = outer;
+	}
+
+	/** Opens a new scope. */
+	public void newScope() {
+		if (depth == marks.length)
+			marks = grow(marks);
+		marks[depth++] = size;
+		if (depth == depths.length)
+			depths = Arrays.copyOf(depths, 2 * depths.length);
+		depths[depth]++;
+	}
+
+	/** Closes the innermost scope, forgetting what was declared in it. */
+	public void closeScope() {
+		int mark = marks[--depth];
+		while (size > mark)
+			pop();
+	}
+
+	/** The number of open scopes. */
+	public int depth() {
+		return depth;
+	}
+
+	/** The number of times get() was called. */
+	public long lookups() {
+		return lookups;
+	}
+
+	/** For every depth, the number of scopes newScope() opened that deep. */
+	public long[] depths() {
+		return depths;
+	}
+
+	/**
+	 * Declares a symbol in the innermost scope.
+	 * @param symbol The symbol of the name of the declaration.
+	 * @param decl The declaration.
+	 */
+	public void put(int symbol, Object decl) {
+		if (symbol >= innermost.length) {
+			int n[] = new int[Math.max(2 * innermost.length, symbol + 1)];
+			System.arraycopy(innermost, 0, n, 0, innermost.length);
+			innermost = n;
+		}
+		int previous = innermost[symbol];
+		if (previous > (depth == 0 ? 0 : marks[depth - 1]))
+			Error.fatal("Symbol '" + Symbols.name(symbol) + "' already defined in this scope.");
+		if (size == symbols.length) {
+			symbols = grow(symbols);
+			hidden = grow(hidden);
+			Object d[] = new Object[2 * decls.length];
+			System.arraycopy(decls, 0, d, 0, size);
+			decls = d;
+		}
+		symbols[size] = symbol;
+		decls[size] = decl;
+		hidden[size] = previous;
+		size++;
+		innermost[symbol] = size;
+	}
+
+	/**
+	 * Finds the innermost declaration of a symbol.
+	 * @param symbol The symbol of the name we are looking for.
+	 * @return The declaration - or whatever the outer table has, or null.
+	 */
+	public Object get(int symbol) {
+		lookups++;
+		if (symbol < innermost.length && innermost[symbol] != 0)
+			return decls[innermost[symbol] - 1];
+		return outer == null ? null : outer.get(symbol);
+	}
+
+	private void pop() {
+		size--;
+		innermost[symbols[size]] = hidden[size];
+		decls[size] = null;
+	}
+
+	private static int[] grow(int a[]) {
+		int n[] = new int[2 * a.length];
+		System.arraycopy(a, 0, n, 0, a.length);
+		return n;
+	}
+}
@@ -1,6 +1,8 @@
 package Utilities;
 
-/** Holds the settings that can be set by the user
+/** Holds the defaults of the settings that can be set by the user. Every
+ * compilation gets its own copy of them in its CompilerContext, which is
+ * where the command line options end up.
  * 
  * @author Matt Pedersen
  *
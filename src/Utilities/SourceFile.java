@@ -0,0 +1,80 @@
+package Utilities;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/** The text of a source file, decoded once into one array of characters.
+ * The scanner scans straight out of the array (see Scanner/espresso.flex)
+ * and its line index keeps using the same array (see LineIndex.java), so the
+ * text is neither copied nor read through a Reader a few characters at a
+ * time.
+ *
+ * A file is read with one read on its channel, or mapped into memory if it
+ * is big, and decoded with the platform's default character set, just like
+ * a FileReader would.
+ */
+public class SourceFile {
+	/** Files of at least this many bytes are mapped instead of read. */
+	private static final long MAP_SIZE = 1 << 20;
+
+	/** The text; only the first 'length' characters are used. */
+	public final char text[];
+	public final int length;
+
+	private SourceFile(char text[], int length) {
+		this.text = text;
+		this.length = length;
+	}
+
+	/** Reads and decodes a file. */
+	public static SourceFile read(File file) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel channel = in.getChannel();
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException(file + " is too big");
+			ByteBuffer bytes;
+			if (size >= MAP_SIZE)
+				bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			else {
+				bytes = ByteBuffer.allocate((int)size);
+				while (bytes.hasRemaining() && channel.read(bytes) >= 0)
+					;
+				bytes.flip();
+			}
+			return decode(bytes);
+		} finally {
+			in.close();
+		}
+	}
+
+	/** Decodes the contents of a file that has already been read. */
+	public static SourceFile decode(ByteBuffer bytes) {
+		CharBuffer chars = Charset.defaultCharset().decode(bytes);
+		if (chars.hasArray() && chars.arrayOffset() == 0 && chars.position() == 0)
+			return new SourceFile(chars.array(), chars.limit());
+		char text[] = new char[chars.remaining()];
+		chars.get(text);
+		return new SourceFile(text, text.length);
+	}
+
+	/** Reads everything 'in' has to give (standard input). */
+	public static SourceFile read(Reader in) throws IOException {
+		char text[] = new char[8192];
+		int length = 0;
+		int n;
+		while ((n = in.read(text, length, text.length - length)) > 0) {
+			length += n;
+			if (length == text.length) {
+				char t[] = new char[2 * text.length];
+				System.arraycopy(text, 0, t, 0, length);
+				text = t;
+			}
+		}
+		return new SourceFile(text, length);
+	}
+}
@@ -0,0 +1,249 @@
+package Utilities;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+
+import AST.AST;
+import AST.ClassDecl;
+
+/** What a compilation spent its time on (-Tstats). The phases time their
+ * passes with begin() and end(); for every pass the wall time, the CPU time
+ * and the bytes allocated by the compiling thread are kept, together with
+ * the number of nodes in the tree and the number of symbol table lookups
+ * made during the pass. The name checker adds how deep its scopes went.
+ *
+ * When the compilation is done report() prints a summary, writes the same
+ * as JSON next to the file (Foo.java gives Foo.java.stats.json) and adds it to
+ * the totals kept for JMX (see CompilerStats.java).
+ *
+ * The include files parsed on other threads (see Parser/ImportResolver.java)
+ * are not counted in the CPU time and allocations of the pass that waits
+ * for them.
+ */
+public class Stats {
+	private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+	/** One pass of a phase. */
+	public static class Pass {
+		public int phase;
+		public String name;
+		/** In nanoseconds; the CPU time is -1 if the JVM cannot tell. */
+		public long wall, cpu;
+		/** -1 if the JVM cannot tell. */
+		public long allocated;
+		/** The nodes in the tree after the pass. */
+		public int nodes;
+		/** The symbol table lookups made in the pass. */
+		public long lookups;
+
+		private Stats stats;
+		private long startWall, startCpu, startAllocated, startLookups;
+	}
+
+	private String fileName;
+	private CompilerContext context;
+	private ArrayList<Pass> passes = new ArrayList<Pass>();
+	/** scopeDepths[d] is the number of scopes opened d deep. */
+	private long scopeDepths[] = new long[0];
+
+	public Stats(CompilerContext context) {
+		this.context = context;
+		this.fileName = context.fileName;
+	}
+
+	/** Starts timing a pass of the compilation running on this thread;
+	 * returns null if it does not keep statistics. */
+	public static Pass begin(int phase, String name) {
+		Stats stats = CompilerContext.current().stats;
+		if (stats == null)
+			return null;
+		Pass p = new Pass();
+		p.stats = stats;
+		p.phase = phase;
+		p.name = name;
+		p.startLookups = stats.lookups();
+		p.startAllocated = allocated();
+		p.startCpu = cpu();
+		p.startWall = System.nanoTime();
+		return p;
+	}
+
+	/** Stops timing the pass begin() returned (which may be null). */
+	public static void end(Pass p) {
+		if (p == null)
+			return;
+		p.wall = System.nanoTime() - p.startWall;
+		long cpu = cpu();
+		p.cpu = cpu < 0 ? -1 : cpu - p.startCpu;
+		long allocated = allocated();
+		p.allocated = allocated < 0 ? -1 : allocated - p.startAllocated;
+		p.lookups = p.stats.lookups() - p.startLookups;
+		p.nodes = count(p.stats.context.root, null);
+		p.stats.passes.add(p);
+	}
+
+	/** Adds the lookups and the scope depths of the scopes of a name
+	 * checker to the pass it ran in (which may be null). */
+	public static void scopes(Pass p, ScopeStack scopes) {
+		if (p == null)
+			return;
+		p.lookups += scopes.lookups();
+		long depths[] = scopes.depths();
+		int n = depths.length;
+		while (n > 0 && depths[n - 1] == 0)
+			n--;
+		Stats stats = p.stats;
+		if (n > stats.scopeDepths.length)
+			stats.scopeDepths = Arrays.copyOf(stats.scopeDepths, n);
+		for (int i = 0; i < n; i++)
+			stats.scopeDepths[i] += depths[i];
+	}
+
+	private static long cpu() {
+		if (!threads.isCurrentThreadCpuTimeSupported())
+			return -1;
+		return threads.getCurrentThreadCpuTime();
+	}
+
+	private static long allocated() {
+		if (!(threads instanceof com.sun.management.ThreadMXBean))
+			return -1;
+		com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean)threads;
+		if (!t.isThreadAllocatedMemorySupported() || !t.isThreadAllocatedMemoryEnabled())
+			return -1;
+		return t.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/** The lookups made so far in the class table and the tables of the
+	 * classes in it. The tables of the methods of a name are counted with
+	 * the method table they are in; the resolved tables of a class only
+	 * hold (the tables of) other classes. */
+	private long lookups() {
+		SymbolTable classTable = context.classTable;
+		long n = classTable.lookups();
+		for (int i = 0; i < classTable.size(); i++) {
+			ClassDecl cd = (ClassDecl)classTable.entry(i);
+			n += cd.fieldTable().lookups() + cd.methodTable().lookups();
+			for (int j = 0; j < cd.methodTable().size(); j++)
+				n += ((SymbolTable)cd.methodTable().entry(j)).lookups();
+			if (cd.resolvedFields != null)
+				n += cd.resolvedFields.lookups() + cd.resolvedMethods.lookups();
+		}
+		return n;
+	}
+
+	/** The number of nodes in a; if kinds is not null the nodes are counted
+	 * in it by the name of their class as well. A node that is in the tree
+	 * more than once is counted every time. */
+	private static int count(AST a, Map<String, Long> kinds) {
+		if (a == null)
+			return 0;
+		if (kinds != null) {
+			String kind = a.getClass().getSimpleName();
+			Long n = kinds.get(kind);
+			kinds.put(kind, n == null ? 1 : n + 1);
+		}
+		int n = 1;
+		for (int i = 0; i < a.nchildren; i++)
+			n += count(a.children[i], kinds);
+		return n;
+	}
+
+	// ------------------------------------------------------------------------
+	// The report
+
+	/** Prints the summary, writes the JSON file and adds the compilation to
+	 * the totals kept for JMX. */
+	public void report(int status) {
+		Map<String, Object> json = toJson(status);
+		printSummary(json);
+		if (!fileName.equals("")) {
+			File f = context.resolve(jsonFileName(fileName));
+			try {
+				Writer out = new OutputStreamWriter(new FileOutputStream(f), "UTF-8");
+				try {
+					out.write(Json.write(json));
+					out.write('\n');
+				} finally {
+					out.close();
+				}
+				System.out.println("Statistics written to " + f.getPath() + ".");
+			} catch (IOException e) {
+				System.out.println("Could not write " + f.getPath() + " : " + e);
+			}
+		}
+		CompilerStats.get().add(this, json, status);
+	}
+
+	/** Foo.java gives Foo.java.stats.json; the whole name is kept, so no two
+	 * input files share a report. */
+	static String jsonFileName(String fileName) {
+		return fileName + ".stats.json";
+	}
+
+	List<Pass> passes() {
+		return passes;
+	}
+
+	private Map<String, Object> toJson(int status) {
+		Map<String, Object> json = Json.object("file", fileName);
+		json.put("status", status);
+		List<Object> list = new ArrayList<Object>();
+		long wall = 0, cpu = 0, allocated = 0, lookups = 0;
+		for (Pass p : passes) {
+			Map<String, Object> pass = Json.object("phase", p.phase);
+			pass.put("pass", p.name);
+			pass.put("wallNanos", p.wall);
+			pass.put("cpuNanos", p.cpu);
+			pass.put("allocatedBytes", p.allocated);
+			pass.put("nodes", p.nodes);
+			pass.put("lookups", p.lookups);
+			list.add(pass);
+			wall += p.wall;
+			cpu = (cpu < 0 || p.cpu < 0) ? -1 : cpu + p.cpu;
+			allocated = (allocated < 0 || p.allocated < 0) ? -1 : allocated + p.allocated;
+			lookups += p.lookups;
+		}
+		json.put("passes", list);
+		Map<String, Object> total = Json.object("wallNanos", wall);
+		total.put("cpuNanos", cpu);
+		total.put("allocatedBytes", allocated);
+		Map<String, Long> kinds = new TreeMap<String, Long>();
+		total.put("nodes", count(context.root, kinds));
+		total.put("lookups", lookups);
+		json.put("total", total);
+		json.put("nodeKinds", kinds);
+		List<Object> depths = new ArrayList<Object>();
+		for (int i = 0; i < scopeDepths.length; i++)
+			depths.add(scopeDepths[i]);
+		json.put("scopeDepths", depths);
+		return json;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void printSummary(Map<String, Object> json) {
+		System.out.println("** Statistics for " + (fileName.equals("") ? "standard input" : fileName) + " **");
+		System.out.println(String.format("%-5s %-22s %10s %10s %12s %8s %10s", "phase", "pass", "wall ms", "cpu ms", "alloc KB", "nodes", "lookups"));
+		for (Pass p : passes)
+			System.out.println(String.format("%-5d %-22s %10s %10s %12s %8d %10d", p.phase, p.name,
+					millis(p.wall), millis(p.cpu), kilobytes(p.allocated), p.nodes, p.lookups));
+		Map<String, Object> total = (Map<String, Object>)json.get("total");
+		System.out.println(String.format("%-5s %-22s %10s %10s %12s %8d %10d", "", "total",
+				millis((Long)total.get("wallNanos")), millis((Long)total.get("cpuNanos")),
+				kilobytes((Long)total.get("allocatedBytes")), total.get("nodes"), total.get("lookups")));
+		StringBuilder sb = new StringBuilder("Scope depths:");
+		for (int i = 1; i < scopeDepths.length; i++)
+			sb.append(" ").append(i).append(":").append(scopeDepths[i]);
+		System.out.println(sb);
+	}
+
+	private static String millis(long nanos) {
+		return nanos < 0 ? "-" : String.format("%.2f", nanos / 1e6);
+	}
+
+	private static String kilobytes(long bytes) {
+		return bytes < 0 ? "-" : Long.toString(bytes / 1024);
+	}
+}
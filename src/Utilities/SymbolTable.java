@@ -2,19 +2,34 @@ package Utilities;
 
 import java.util.*;
 
-/** The symbol table class.  Each symbol table contains a Vector that
- * contains the symbols defined in the scope that it corresponds to, and a
- * reference to the symbol table for its enclosing scope (if any).
+/** The symbol table class.  Each symbol table contains the symbols defined
+ * in the scope that it corresponds to, and a reference to the symbol table
+ * for its enclosing scope (if any).
+ *
+ * Entries are keyed on symbols (see Symbols.java), so a lookup compares
+ * integers; the methods that take a String turn it into its symbol first.
+ * The entries are kept in the order they were entered in, and found
+ * through a small open addressing hash table on the symbol.
+ *
+ * The entries are transient: a table copied by ASTCodec is empty (the
+ * tables of the parse tree of an include file are, when it is stored).
  */
 
 public class SymbolTable {
 	private SymbolTable parent;
 
-	public Hashtable<String, Object> entries;
+	// The symbols and entries in the order they were entered.
+	private transient int symbols[];
+	private transient Object values[];
+	private transient int size;
+	// index[h] is 1 + the position in symbols/values of an entry whose
+	// symbol hashes to h (or to an earlier slot that was taken); 0 if empty.
+	private transient int index[];
+	// The number of lookups in this scope (see Stats.java).
+	private transient long lookups;
 
 	public SymbolTable() {
 		parent = null;
-		entries = new Hashtable<String, Object>();
 	}
 
 	public SymbolTable(SymbolTable parent) {
@@ -23,7 +38,15 @@ public class SymbolTable {
 	}
 
 	public void remove(String name) {
-		entries.remove(name);
+		int symbol = Symbols.lookup(name);
+		int i = find(symbol);
+		if (i < 0)
+			return;
+		size--;
+		System.arraycopy(symbols, i + 1, symbols, i, size - i);
+		System.arraycopy(values, i + 1, values, i, size - i);
+		values[size] = null;
+		rehash(index.length);
 	}
 
 	/**
@@ -32,34 +55,101 @@ public class SymbolTable {
 	 * @param entry The entry.
 	 */
 	public void put(String name,Object entry) {
-		Object lookup = entries.get(name);
-		if (lookup != null) {
-			System.out.println("Symbol '" + name + "' already defined in this scope.");
-			System.exit(1);
+		put(Symbols.intern(name), entry);
+	}
+
+	/**
+	 * Enteres a new entry into the symbol table.
+	 * @param symbol The symbol of the name of the entry object.
+	 * @param entry The entry.
+	 */
+	public void put(int symbol, Object entry) {
+		if (entry == null)
+			throw new NullPointerException();
+		if (find(symbol) >= 0) {
+			Error.fatal("Symbol '" + Symbols.name(symbol) + "' already defined in this scope.");
 		}
-		entries.put(name,entry);
+		if (symbols == null) {
+			symbols = new int[4];
+			values = new Object[4];
+			index = new int[8];
+		} else if (size == symbols.length) {
+			symbols = Arrays.copyOf(symbols, 2 * size);
+			values = Arrays.copyOf(values, 2 * size);
+			rehash(4 * size);
+		}
+		symbols[size] = symbol;
+		values[size] = entry;
+		size++;
+		insert(size - 1);
 	}
-	
+
 	/**
 	 * Check if a symbol table (or its parents) contains an entry by the name.
 	 * @param name The name of the entry for which we are looking.
 	 * @return The associated object - null if no entry is found by that name.
 	 */
 	public Object get(String name) {
-		Object result = entries.get(name);
-		if (result!=null)
-			return result;
-		if (parent==null) {
+		int symbol = Symbols.lookup(name);
+		// A name the scanner has never seen cannot be in any table.
+		if (symbol == 0)
 			return null;
+		return get(symbol);
+	}
+
+	/**
+	 * Check if a symbol table (or its parents) contains an entry by the symbol.
+	 * @param symbol The symbol of the name of the entry for which we are looking.
+	 * @return The associated object - null if no entry is found by that symbol.
+	 */
+	public Object get(int symbol) {
+		lookups++;
+		for (SymbolTable st = this; st != null; st = st.parent) {
+			int i = st.find(symbol);
+			if (i >= 0)
+				return st.values[i];
 		}
-		return parent.get(name);
+		return null;
+	}
+
+	/** The number of times get() was called on this table. */
+	public long lookups() {
+		return lookups;
+	}
+
+	/** The entries of this scope (not its parents) in the order they were entered. */
+	public Enumeration<Object> elements() {
+		if (size == 0)
+			return Collections.enumeration(Collections.emptyList());
+		return Collections.enumeration(Arrays.asList(values).subList(0, size));
+	}
+
+	/** The number of entries in this scope (not its parents). */
+	public int size() {
+		return size;
+	}
+
+	/** The symbol of the i'th entry of this scope (0 <= i < size()). */
+	public int symbol(int i) {
+		return symbols[i];
+	}
+
+	/** The i'th entry of this scope (0 <= i < size()). */
+	public Object entry(int i) {
+		return values[i];
 	}
 
 	public String toString() {
 		String s = "";
 		if (parent != null)
 			s = "\n" + parent.toString();
-		return entries.toString() + s;
+		StringBuilder sb = new StringBuilder("{");
+		for (int i = 0; i < size; i++) {
+			if (i > 0)
+				sb.append(", ");
+			sb.append(Symbols.name(symbols[i])).append("=").append(values[i]);
+		}
+		return sb.append("}").toString() + s;
 	}
 
 	/**
@@ -70,7 +160,7 @@ public class SymbolTable {
 		return new SymbolTable(this);
 	}
 
-	/** 
+	/**
 	 * Closes the current scope and returns its parent scope
 	 * @return the current scope's parent scope.
 	 */
@@ -78,8 +168,36 @@ public class SymbolTable {
 		return parent;
 	}
 
-}
-
+	// ------------------------------------------------------------------------
+	// The hash table
+
+	/** The position of the entry for symbol in this scope, or -1. */
+	private int find(int symbol) {
+		if (size == 0)
+			return -1;
+		int mask = index.length - 1;
+		for (int h = hash(symbol) & mask; index[h] != 0; h = (h + 1) & mask)
+			if (symbols[index[h] - 1] == symbol)
+				return index[h] - 1;
+		return -1;
+	}
 
+	private void insert(int position) {
+		int mask = index.length - 1;
+		int h = hash(symbols[position]) & mask;
+		while (index[h] != 0)
+			h = (h + 1) & mask;
+		index[h] = position + 1;
+	}
 
+	private void rehash(int capacity) {
+		index = new int[capacity];
+		for (int i = 0; i < size; i++)
+			insert(i);
+	}
 
+	private static int hash(int symbol) {
+		int h = symbol * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
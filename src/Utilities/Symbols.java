@@ -0,0 +1,103 @@
+package Utilities;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/** The identifiers of all the programs compiled by this JVM. Every distinct
+ * identifier is given a small integer, its symbol, when the scanner first
+ * sees it; names and symbol tables carry these integers, so looking up a
+ * name compares integers instead of hashing and comparing strings, and all
+ * the occurrences of an identifier share one String.
+ *
+ * Symbols are only meaningful inside the JVM that made them; nothing that
+ * is written to disk may contain one. Symbol 0 is never used, so a field
+ * that has not been set yet (or was not restored by ASTCodec) can be told
+ * apart from a real symbol.
+ *
+ * The table is shared by all the compilations running in the JVM (see
+ * Phases/Batch.java and Server/CompileServer.java); looking up a symbol
+ * needs no locking, only adding one does.
+ *
+ * So that a long running JVM (the compile server, the language server)
+ * does not keep every identifier it ever saw, every compilation (and every
+ * parse of an include file for the ImportCache) is bracketed by use() and
+ * release(), and when the last one running is done and there are more
+ * than LIMIT symbols the table is emptied. Nothing holds on to a symbol
+ * between compilations: Name.symbol is transient and looked up again when
+ * it is 0, and the trees the ImportCache and Phases/Session.java keep are
+ * stored by ASTCodec, without symbols. A tree must therefore not be used
+ * once the compilation that made it is over.
+ */
+public class Symbols {
+	private static final ConcurrentHashMap<String, Integer> symbols = new ConcurrentHashMap<String, Integer>();
+	/** The identifier of every symbol, by symbol. */
+	private static volatile String names[] = new String[1024];
+	private static int count = 1;
+	/** The number of compilations using the table. */
+	private static int users = 0;
+
+	/** The number of symbols above which the table is emptied when no
+	 * compilation is using it. */
+	public static final int LIMIT = 1 << 16;
+
+	/** The names of the constructors and the static initializers in the
+	 * method tables. */
+	public static final int INIT = intern("<init>");
+	public static final int CLINIT = intern("<clinit>");
+
+	/** The symbol of 'name'; a new one if name has not been seen before. */
+	public static int intern(String name) {
+		Integer symbol = symbols.get(name);
+		if (symbol != null)
+			return symbol;
+		synchronized (Symbols.class) {
+			symbol = symbols.get(name);
+			if (symbol != null)
+				return symbol;
+			if (count == names.length) {
+				String n[] = new String[2 * names.length];
+				System.arraycopy(names, 0, n, 0, count);
+				names = n;
+			}
+			names[count] = name;
+			// The name must be in the array before other threads can find
+			// its symbol in the map.
+			symbols.put(name, count);
+			return count++;
+		}
+	}
+
+	/** The symbol of 'name', or 0 if no identifier by that name has been seen. */
+	public static int lookup(String name) {
+		Integer symbol = symbols.get(name);
+		return symbol == null ? 0 : symbol;
+	}
+
+	/** The identifier of a symbol. */
+	public static String name(int symbol) {
+		return names[symbol];
+	}
+
+	/** Called when a compilation that makes or uses symbols starts; waits
+	 * if the table is being emptied. */
+	public static synchronized void use() {
+		users++;
+	}
+
+	/** Called when a compilation that called use() is over. */
+	public static synchronized void release() {
+		if (--users == 0 && count > LIMIT) {
+			symbols.clear();
+			names = new String[1024];
+			count = 1;
+			// The names of the constructors and static initializers keep
+			// their symbols.
+			if (intern("<init>") != INIT || intern("<clinit>") != CLINIT)
+				throw new IllegalStateException("The symbols of <init> and <clinit> have changed.");
+		}
+	}
+
+	/** The number of symbols handed out so far. */
+	public static int size() {
+		return symbols.size();
+	}
+}
@@ -0,0 +1,56 @@
+package Utilities;
+
+import java.io.*;
+
+/** An output stream that sends whatever a thread writes to the stream that
+ * thread has registered with setTarget(). The compile server installs one of
+ * these as System.out and System.err so that the output of each compilation
+ * goes back to the client that asked for it, and a batch compilation (see
+ * Phases/Batch.java) uses them to collect the output of each file.
+ */
+public class ThreadOutputStream extends OutputStream {
+	private static final ThreadLocal<OutputStream> target = new ThreadLocal<OutputStream>();
+	private static boolean installed = false;
+
+	/** Where the output goes for threads that have not set a target. */
+	private OutputStream fallback;
+
+	public ThreadOutputStream(OutputStream fallback) {
+		this.fallback = fallback;
+	}
+
+	/** Makes System.out and System.err thread streams (once); threads without
+	 * a target keep writing to the streams that were there before. */
+	public static synchronized void install() {
+		if (installed)
+			return;
+		System.setOut(new PrintStream(new ThreadOutputStream(System.out)));
+		System.setErr(new PrintStream(new ThreadOutputStream(System.err), true));
+		installed = true;
+	}
+
+	/** Sends everything the current thread writes to 'out' (null to stop). */
+	public static void setTarget(OutputStream out) {
+		if (out == null)
+			target.remove();
+		else
+			target.set(out);
+	}
+
+	private OutputStream current() {
+		OutputStream out = target.get();
+		return out == null ? fallback : out;
+	}
+
+	public void write(int b) throws IOException {
+		current().write(b);
+	}
+
+	public void write(byte[] b, int off, int len) throws IOException {
+		current().write(b, off, len);
+	}
+
+	public void flush() throws IOException {
+		current().flush();
+	}
+}
@@ -10,15 +10,34 @@ import AST.*;
 public abstract class Visitor {
 
 	// The 'debug' field should be set in the constructor of the 
-	// extending class.
-	protected static boolean debug;
+	// extending class. Each visitor has its own, so tracing one traversal
+	// does not turn on tracing in another compilation. print() and
+	// println() only look at it when they are called; a message that has
+	// to be put together is put together under 'if (debug)', so a visitor
+	// that does not trace does not build strings it never prints.
+	protected boolean debug;
 
-	public static void print(String info) {
+	// True while visiting a class no code is generated for (an imported
+	// class, or one that has not changed since the last compilation); only
+	// its signatures are visited then: the blocks, the constructor calls and
+	// the initializers are left out. A visitor that overrides visitClassDecl
+	// without calling super.visitClassDecl (like PrintVisitor) sees it all.
+	protected boolean skipCode = false;
+
+	/** True if a child whose visit returns an AST is to be replaced by it in
+	 * its parent (see AST.visitChildren()). The name checker does this to
+	 * rewrite the names of fields into field references as it resolves them;
+	 * other visitors return what they like (the type checker returns types). */
+	public boolean replacesChildren() {
+		return false;
+	}
+
+	public void print(String info) {
 		if (debug)
 			System.out.print(info);
 	}
 
-	public static void println(String info) {
+	public void println(String info) {
 		if (debug) 
 			System.out.println(info);
 	}
@@ -44,6 +63,8 @@ public abstract class Visitor {
 		return bo.visitChildren(this);
 	}
 	public Object visitBlock(Block bl) {
+		if (skipCode)
+			return null;
 		return bl.visitChildren(this);
 	}
 	public Object visitBreakStat(BreakStat bs) {
@@ -56,7 +77,13 @@ public abstract class Visitor {
 		return ci.visitChildren(this);
 	}
 	public Object visitClassDecl(ClassDecl cd) {
-		return cd.visitChildren(this);
+		boolean outer = skipCode;
+		skipCode = !cd.generateCode();
+		try {
+			return cd.visitChildren(this);
+		} finally {
+			skipCode = outer;
+		}
 	}
 	public Object visitClassType(ClassType ct) {
 		return ct.visitChildren(this);
@@ -65,6 +92,12 @@ public abstract class Visitor {
 		return co.visitChildren(this);
 	}
 	public Object visitConstructorDecl(ConstructorDecl cd) {
+		if (skipCode) {
+			cd.modifiers().visit(this);
+			cd.name().visit(this);
+			cd.params().visit(this);
+			return null;
+		}
 		return cd.visitChildren(this);
 	}
 	public Object visitContinueStat(ContinueStat cs) {
@@ -164,6 +197,8 @@ public abstract class Visitor {
 		return up.visitChildren(this);
 	}
 	public Object visitVar(Var va) {
+		if (skipCode)
+			return va.name().visit(this);
 		return va.visitChildren(this);
 	}
 	public Object visitWhileStat(WhileStat ws) {